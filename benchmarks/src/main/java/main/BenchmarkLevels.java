@@ -0,0 +1,55 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//levels used by the benchmarks: the ten shipped levels plus synthetic square grids named GridN. Grids need to be
+//at least 48 tiles wide so the level wall spritesheet has no frames to cut (the wall sheet is sized for the shipped levels)
+final class BenchmarkLevels {
+    private static final String TILES = "1+2*3-4/5%6+7*8-9/0%A+B*C";     //repeating pattern of digits, letters and operators for synthetic grids
+
+    private BenchmarkLevels() {
+    }
+
+    //returns true if the level name is a synthetic grid
+    static boolean isSynthetic(String name) {
+        return name.startsWith("Grid");
+    }
+
+    //builds the layout of a synthetic square level, every cell has a tile so every move inside the grid is legal
+    static LevelLayout syntheticLayout(String name) {
+        int size = Integer.parseInt(name.substring("Grid".length()));
+        List<String> lines = new ArrayList<String>();
+
+        lines.add("42");
+        lines.add(size + " " + size);
+        lines.add(row(size, '&'));
+
+        for(int row = 0; row < size; row++) {
+            StringBuilder line = new StringBuilder();
+            for(int column = 0; column < size; column++)
+                line.append(TILES.charAt((row * size + column) % TILES.length()));
+            lines.add(line.toString());
+        }
+
+        lines.add(row(size, '!'));
+
+        return LevelLayout.parse(name, lines);
+    }
+
+    //a row that is empty except for one character in the middle
+    private static String row(int size, char c) {
+        StringBuilder line = new StringBuilder();
+        for(int column = 0; column < size; column++)
+            line.append(column == size / 2 ? c : ' ');
+        return line.toString();
+    }
+
+    //creates the level the same way GamePanel does, synthetic grids are built from their layout
+    static Level createLevel(GamePanel gp, String name) {
+        if(isSynthetic(name))
+            return new Level(gp, gp.player, "Animations/Level/LevelWall", syntheticLayout(name));
+        else
+            return new Level(gp, gp.player, "Animations/Level/LevelWall", name);
+    }
+}
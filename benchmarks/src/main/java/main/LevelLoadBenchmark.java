@@ -0,0 +1,49 @@
+package main;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//creating a level (reading its layout and building its tiles), as done on every level change, compared to resetting
+//a level that is already loaded, as done when R is pressed
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class LevelLoadBenchmark {
+    @Param({"Level1", "Level2", "Level3", "Level4", "Level5", "Level6", "Level7", "Level8", "Level9", "Level10", "Grid64", "Grid128"})
+    public String levelName;
+
+    private GamePanel gp;
+    private main.Level level;       //level that gets reset
+
+    @Setup
+    public void setup() {
+        gp = new GamePanel();
+        level = BenchmarkLevels.createLevel(gp, levelName);
+        gp.level = level;
+        gp.player.setLevel(level);
+    }
+
+    @Benchmark
+    public main.Level loadLevel() {
+        return BenchmarkLevels.createLevel(gp, levelName);
+    }
+
+    @Benchmark
+    public void resetLevel() {
+        level.reset();
+    }
+}
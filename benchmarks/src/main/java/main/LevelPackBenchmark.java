@@ -0,0 +1,51 @@
+package main;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//reading a level's layout from its text file compared to decoding it from the compiled level pack
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class LevelPackBenchmark {
+    @Param({"Level1", "Level5", "Level10"})
+    public String levelName;
+
+    private LevelPack pack;
+
+    @Setup
+    public void setup() throws IOException {
+        pack = LevelPack.open(LevelPack.DEFAULT_PATH);
+    }
+
+    @Benchmark
+    public LevelLayout readText() throws FileNotFoundException {
+        return LevelLayout.load("Assets/Levels/" + levelName + ".txt");
+    }
+
+    @Benchmark
+    public LevelLayout readPack() {
+        return pack.getLayout(levelName);
+    }
+
+    @Benchmark
+    public LevelPack openPack() throws IOException {
+        return LevelPack.open(LevelPack.DEFAULT_PATH);
+    }
+}
@@ -0,0 +1,115 @@
+package main;
+
+import java.awt.event.KeyEvent;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+//move validation, tile actions and current string display of the Player on every shipped level and on synthetic grids
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PlayerBenchmark {
+    @Param({"Level1", "Level2", "Level3", "Level4", "Level5", "Level6", "Level7", "Level8", "Level9", "Level10", "Grid64", "Grid128"})
+    public String levelName;
+
+    private GamePanel gp;
+    private Player player;
+    private main.Level level;
+
+    private float centerX;          //position of a tile with a tile in every direction where possible
+    private float centerY;
+    private float operatorX;        //position of an operator tile
+    private float operatorY;
+    private float valueX;           //position of a number or letter tile
+    private float valueY;
+    private boolean flip;           //switches between the two strings shown by displayCurrentString
+
+    @Setup(Level.Trial)
+    public void setup() {
+        gp = new GamePanel();
+        player = gp.player;
+        level = BenchmarkLevels.createLevel(gp, levelName);
+        gp.level = level;
+        player.setLevel(level);
+
+        LevelLayout layout = level.getLayout();
+        boolean foundOperator = false;
+        boolean foundValue = false;
+
+        for(Tile tile : level.getActionTiles()) {
+            if(tile.getTileType() != Tile.TileType.NORMAL)
+                continue;
+
+            if(LevelLayout.isOperator(tile.getValue().charAt(0)) && !foundOperator) {
+                operatorX = tile.getXPos();
+                operatorY = tile.getYPos();
+                foundOperator = true;
+            }
+            else if(!LevelLayout.isOperator(tile.getValue().charAt(0)) && !foundValue) {
+                valueX = tile.getXPos();
+                valueY = tile.getYPos();
+                foundValue = true;
+            }
+        }
+
+        //the middle of the level is a good place to check moves from
+        Tile center = level.getTileAt(layout.getColumns() / 2, layout.getRows() / 2);
+        if(center == null)
+            center = level.getActionTiles().getLast();
+        centerX = center.getXPos();
+        centerY = center.getYPos();
+    }
+
+    @Benchmark
+    public int legalMove() {
+        player.setPosition(centerX, centerY);
+
+        int legal = 0;
+        if(player.legalMove(KeyEvent.VK_UP))
+            legal++;
+        if(player.legalMove(KeyEvent.VK_DOWN))
+            legal++;
+        if(player.legalMove(KeyEvent.VK_LEFT))
+            legal++;
+        if(player.legalMove(KeyEvent.VK_RIGHT))
+            legal++;
+        return legal;
+    }
+
+    //lands on an operator tile and then on a number or letter tile, which applies the calculation and redisplays the string
+    @Benchmark
+    public void onTileAction(Blackhole blackhole) {
+        player.setCurrentString("1234.5");
+
+        player.setPosition(operatorX, operatorY);
+        player.onTileAction();
+        player.setPosition(valueX, valueY);
+        player.onTileAction();
+
+        blackhole.consume(player.getCurrentString());
+    }
+
+    //the last character changes every call, like it does after most tile actions
+    @Benchmark
+    public void displayCurrentString() {
+        flip = !flip;
+        player.setCurrentString(flip ? "123456789.12" : "123456789.13");
+        player.displayCurrentString();
+    }
+}
@@ -0,0 +1,62 @@
+package main;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//the string rules the Player applies when landing on a number or letter tile
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesBenchmark {
+    @Param({"+", "-", "*", "/", "%"})
+    public String operator;
+
+    @Param({"7", "10"})
+    public String tileValue;
+
+    private RulesEngine rules;
+    private String number;          //player string that is only a number
+    private String words;           //player string with letters, used for the string manipulation
+
+    @Setup
+    public void setup() {
+        rules = new RulesEngine(Player.MAX_STRING_LENGTH);
+        number = "123456.75";
+        words = "IS DUST";
+    }
+
+    @Benchmark
+    public String applyCalculation() {
+        return rules.applyCalculation(number, operator, number.length(), number.length(), tileValue);
+    }
+
+    //the calculation without the long fast path, for comparison
+    @Benchmark
+    public String applyCalculationBigDecimal() {
+        return rules.bigDecimalCalculation(number, operator, tileValue);
+    }
+
+    @Benchmark
+    public String applyStringManipulation() {
+        return rules.applyStringManipulation(words, operator, true, "S");
+    }
+
+    @Benchmark
+    public String applyOperation() {
+        return rules.applyOperation(number, operator, tileValue);
+    }
+}
@@ -0,0 +1,72 @@
+package main;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+
+//draws the game from the game thread onto a Canvas through a BufferStrategy, instead of asking Swing to repaint the panel
+//and waiting for the paint manager to get to it. Each frame is drawn into a back buffer (kept in video memory when the
+//graphics pipeline supports it) that is flipped or copied to the screen as soon as the frame is done. Flipping waits for
+//the vertical retrace on pipelines that page flip. Used when the game is started with -Dnumlet.renderer=active
+public class ActiveRenderer {
+    private GamePanel gp;               //game panel object, draws the frames
+    private Canvas canvas;              //the component the frames are shown on
+    private BufferStrategy strategy;    //the back buffers of the canvas, made once the canvas is in a window
+
+    public ActiveRenderer(GamePanel gp) {
+        this.gp = gp;
+
+        //the canvas is only drawn by render, when the window asks for it to be painted (after being uncovered) the whole
+        //screen is marked to be drawn again by the game thread
+        canvas = new Canvas() {
+            @Override
+            public void paint(Graphics g) {
+                gp.markAllDirty();
+            }
+
+            @Override
+            public void update(Graphics g) {
+                paint(g);
+            }
+        };
+        canvas.setPreferredSize(new Dimension(gp.screenWidth, gp.screenHeight));
+        canvas.setBackground(Color.BLACK);
+        canvas.setFocusable(true);
+        canvas.addKeyListener(gp.player);
+    }
+
+    //the component to put in the window instead of the game panel
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    //draws the whole frame into the back buffer and shows it. The contents of a back buffer aren't kept after it's shown,
+    //so every frame is drawn completely. Called from the game thread, does nothing until the canvas is in a window
+    public void render() {
+        if(!canvas.isDisplayable())
+            return;
+
+        if(strategy == null) {
+            canvas.createBufferStrategy(2);     //page flipping if the screen supports it, otherwise copying from a back buffer
+            strategy = canvas.getBufferStrategy();
+        }
+
+        long start = Metrics.start();
+
+        //the buffers can lose their contents (video memory being reclaimed), in that case the frame is drawn again
+        do {
+            do {
+                Graphics2D g2D = (Graphics2D) strategy.getDrawGraphics();
+                g2D.setColor(Color.BLACK);
+                g2D.fillRect(0, 0, gp.screenWidth, gp.screenHeight);
+                gp.drawFrame(g2D);
+                g2D.dispose();
+            } while(strategy.contentsRestored());
+
+            strategy.show();
+        } while(strategy.contentsLost());
+
+        Toolkit.getDefaultToolkit().sync();     //make sure the frame is sent to the screen now on systems that buffer drawing (X11)
+        Metrics.endFrame(start, gp.gameThread);
+        Startup.frameDrawn();
+    }
+}
@@ -2,20 +2,24 @@ package main;
 
 import java.awt.image.BufferedImage;
 
+//the frames of an animation. The frame that is shown comes from the shared animation clock, so animations with the same
+//number of frames and frame delay run in step without each one counting updates
 public class Animation {
     private BufferedImage[] frames;     //stores the list of frames in the animation
     private int numFrames;              //the number of frames in the animation
-    private int currentFrame;           //index of current frame animation is on
-    private int frameCount;             //counts the number of frames in game since last frame in animation updated
-    private int frameDelay;             //number of game updates before next frame of animation is displayed
+    private AnimationClock clock;       //the clock the animation runs on
+    private AnimationClock.Track track; //the frame shared by the animations with the same number of frames and frame delay
+    private volatile int phase;         //number of updates the animation runs ahead of its track, 0 to run in step with it (read by the painting thread)
+    private int stoppedFrame;           //frame the animation is held on while it isn't running
     private boolean start;              //cues the animation to begin
 
     public Animation(BufferedImage[] frames, int frameDelay) {
         this.frames = frames;
         numFrames = frames.length;
-        currentFrame = 0;
-        frameCount = 0;
-        this.frameDelay = frameDelay;
+        clock = AnimationClock.shared();
+        track = clock.track(numFrames, frameDelay);
+        phase = 0;
+        stoppedFrame = 0;
         start = false;
     }
 
@@ -24,31 +28,67 @@ public class Animation {
         start = true;
     }
 
-    //stops the animation
+    //stops the animation on the frame it's on
     public void stop() {
+        stoppedFrame = getCurrentFrameIndex();
         start = false;
     }
 
+    //puts the animation on the same frame as another animation, or back in step with its track if there is no other animation
+    public void syncWith(Animation other) {
+        phase = other == null ? 0 : other.phase;
+    }
+
+    //sets the number of updates the animation runs ahead of the other animations on its track
+    public void setPhase(int updates) {
+        phase = Math.floorMod(updates, track.getCycleLength());
+    }
+
+    //starts the animation over from its first frame at the current update, out of step with its track from then on
+    public void restart() {
+        setPhase((int) -Math.floorMod(clock.getTick(), (long) track.getCycleLength()));
+    }
+
+    //returns the number of updates the animation runs ahead of the other animations on its track
+    public int getPhase() {
+        return phase;
+    }
+
     //returns the current frame in the animation
     public BufferedImage getCurrentFrame() {
-        return frames[currentFrame];
+        return frames[getCurrentFrameIndex()];
     }
 
-    //updates the frame of the animation
-    public void update() {
-        //if animation is currently running, increment the frame count
-        if(start) {
-            frameCount++;
+    //replaces the frames of the animation (for example with scaled copies) without restarting it,
+    //the new frames must be the same number as the old ones
+    public void setFrames(BufferedImage[] frames) {
+        this.frames = frames;
+    }
+
+    //returns the frame at the given index of the animation
+    public BufferedImage getFrame(int index) {
+        return frames[index];
+    }
+
+    //returns the index of the current frame in the animation
+    public int getCurrentFrameIndex() {
+        if(!start)
+            return stoppedFrame;
+
+        return phase == 0 ? track.getFrame() : track.frameAt(clock.getTick() + phase);
+    }
+
+    //returns the number of frames in the animation
+    public int getNumFrames() {
+        return numFrames;
+    }
 
-            //if the frame count is greater than frame delay, go to next frame in animation
-            if(frameCount > frameDelay) {
-                frameCount = 0;
-                currentFrame++;
+    //returns true if the frame that is displayed changed with the last update of the animation clock. The clock moves the
+    //animation on, so this can be called any number of times per update (or not at all)
+    public boolean update() {
+        if(!start)
+            return false;
 
-                //if the current frame index is greater than the number of frames, set index to 0 (animation cycles)
-                if(currentFrame >= numFrames)
-                    currentFrame = 0;
-            }
-        }
+        return phase == 0 ? track.hasChanged() : track.changedAt(clock.getTick() + phase);
     }
 }
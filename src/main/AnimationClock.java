@@ -0,0 +1,88 @@
+package main;
+
+//counts game updates for all the animations in the game. Animations with the same number of frames and frame delay are
+//always on the same frame, so they share a track and an animation only looks its frame up instead of counting updates
+//itself. The track works its frame out from the clock's update count when it's read, so the game thread, the event thread
+//and the preloader all see the frame of the same update. An animation can also be put a number of updates ahead of its
+//track (a phase offset) to run out of step with the others
+public class AnimationClock {
+    //the frame that every animation with the same number of frames and frame delay is on
+    public static class Track {
+        private final AnimationClock clock;     //the clock the track counts updates on
+        private final int numFrames;            //number of frames in the animations on the track
+        private final int period;               //number of updates each frame is shown for (the frame delay plus 1)
+
+        Track(AnimationClock clock, int numFrames, int frameDelay) {
+            this.clock = clock;
+            this.numFrames = numFrames;
+            this.period = frameDelay + 1;
+        }
+
+        //the frame an animation on the track is on at the given update
+        int frameAt(long tick) {
+            return (int) (Math.floorDiv(tick, period) % numFrames);
+        }
+
+        //true if an animation on the track changed frame at the given update
+        boolean changedAt(long tick) {
+            return numFrames > 1 && Math.floorMod(tick, period) == 0;
+        }
+
+        //frame the animations on the track are on
+        public int getFrame() {
+            return frameAt(clock.getTick());
+        }
+
+        //true if the frame changed with the last update
+        public boolean hasChanged() {
+            return changedAt(clock.getTick());
+        }
+
+        //number of updates it takes for the animation to play all its frames once
+        public int getCycleLength() {
+            return period * numFrames;
+        }
+    }
+
+    private static final AnimationClock shared = new AnimationClock();    //clock ticked by the game updates
+
+    private volatile long tick;                 //number of updates so far, only counted by the game thread
+    private volatile Track[] tracks = new Track[0];     //the tracks, replaced with a longer copy when a track is added
+
+    //returns the clock used by every animation in the game
+    public static AnimationClock shared() {
+        return shared;
+    }
+
+    //returns the track for animations with the given number of frames and frame delay, adding it if there isn't one.
+    //Levels are built on the preloader thread, so this can be called from any thread
+    public synchronized Track track(int numFrames, int frameDelay) {
+        for(Track track : tracks) {
+            if(track.numFrames == numFrames && track.period == frameDelay + 1)
+                return track;
+        }
+
+        Track track = new Track(this, numFrames, frameDelay);
+
+        Track[] longer = new Track[tracks.length + 1];
+        System.arraycopy(tracks, 0, longer, 0, tracks.length);
+        longer[tracks.length] = track;
+        tracks = longer;
+        return track;
+    }
+
+    //moves every animation on by one update, called once per game update by the game thread
+    public void tick() {
+        tick = tick + 1;
+    }
+
+    //number of updates so far
+    public long getTick() {
+        return tick;
+    }
+
+    //number of distinct tracks
+    public int getTrackCount() {
+        return tracks.length;
+    }
+}
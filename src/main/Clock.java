@@ -0,0 +1,9 @@
+package main;
+
+//source of the time the player's movement is timed with, so that the game can also run on a simulated clock
+public interface Clock {
+    Clock SYSTEM = System::currentTimeMillis;      //the real time, used when playing the game
+
+    //the current time in milliseconds
+    long currentTimeMillis();
+}
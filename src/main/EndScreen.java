@@ -59,13 +59,15 @@ public class EndScreen {
         }
     }
 
-    //update the end and exit animations
+    //mark the end and exit messages to be redrawn when their animation changes frame. The tiles were all made together
+    //and run in step on the animation clock, so checking the first one is enough
     public void update() {
-        for(int i=0; i<endMessageTiles.size(); i++) {
-            endMessageTiles.get(i).update();
-        }
-        for(int i=0; i<escPromptTiles.size(); i++) {
-            escPromptTiles.get(i).update();
-        }
+        if(endMessageTiles.isEmpty() || !endMessageTiles.getFirst().update())
+            return;
+
+        for(int i=0; i<endMessageTiles.size(); i++)
+            gp.markDirty(endMessageTiles.get(i));
+        for(int i=0; i<escPromptTiles.size(); i++)
+            gp.markDirty(escPromptTiles.get(i));
     }
 }
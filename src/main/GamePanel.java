@@ -2,6 +2,14 @@ package main;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
 
 public class GamePanel extends JPanel implements Runnable {
     //Screen settings
@@ -10,14 +18,49 @@ public class GamePanel extends JPanel implements Runnable {
     public int screenHeight;        //screen height
     public int levelIndex;          //index for loading the current level
 
-    final int numLevels = 10;
-    int FPS = 60;
+    int numLevels;                  //number of levels in the game, counted from the level pack or the level files (no limit in endless mode)
+    int builtInLevels;              //number of levels in the level pack or the level files, in endless mode generated levels come after these
+    final int UPS = 60;                                                 //game updates per second (animations and movement are timed in updates)
+    int FPS = Math.max(1, Integer.getInteger("numlet.fps", 60));       //frames drawn per second, can be set with -Dnumlet.fps (lower values count as 1)
+    int maxFrameSkip = Math.max(1, Integer.getInteger("numlet.maxFrameSkip", 5));     //most updates run in a row to catch up before a frame is drawn (1 turns catch-up off, lower values count as 1)
+    volatile boolean showFrameTime = Boolean.getBoolean("numlet.showFrameTime");   //draws the metrics overlay (frame times, CPU time, allocation) in the corner of the screen, toggled with F3
+    int preloadDepth = Integer.getInteger("numlet.preloadDepth", 1);    //number of levels after the current one that are built in the background (0 turns it off)
+    long preloadBudget = Integer.getInteger("numlet.preloadBudgetMB", 32) * 1024L * 1024L;     //image memory allowed for preloading levels past the next one
+    boolean endless = Boolean.getBoolean("numlet.endless");            //keeps generating new levels after the last level instead of ending the game
+    int moveQueueDepth = Integer.getInteger("numlet.moveQueueDepth", 2);   //most move keys pressed during a move that are kept to be carried out after it (0 ignores them)
+    boolean flushMovesOnReset = !"false".equals(System.getProperty("numlet.flushMovesOnReset"));  //drops the queued moves when the level is reset with R, otherwise they are carried out from the start position
+    String recordInput = System.getProperty("numlet.recordInput");      //file the keys pressed are recorded to, to replay the game with Simulation
+    String renderer = System.getProperty("numlet.renderer", "swing");  //"swing" repaints the panel through Swing, "active" draws from the game thread with an ActiveRenderer
+    boolean keepLevels;             //keeps every level that was loaded and resets it when it's loaded again, used to replay many games quickly
+
+    volatile float interpolation;       //how far the game is between the last update and the next one (0 to 1), used to smooth drawing
+    volatile long updateCpuTime;        //CPU time the game thread used for updates since the last frame, in nanoseconds
+    volatile long paintCpuTime;         //CPU time used to draw the last frame, in nanoseconds
+    volatile long updateCount;          //number of updates run so far, the time keys are recorded with
+    private ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    private static final int MAX_GENERATE_ATTEMPTS = 5;     //level indexes tried in endless mode before giving up on generating a level (each tries many grids)
+
+    private static final int OVERLAY_WIDTH = 560;       //size of the metrics overlay
+    private static final int OVERLAY_HEIGHT = 165;
+    private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 160);
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+
+    private Rectangle dirtyRegion = new Rectangle();    //area of the screen that changed since the last frame and needs to be repainted
+    private boolean dirty;                              //true if anything changed since the last frame
 
     //instantiate the player object
     Player player = new Player(this, 100, 100);
     Thread gameThread;      //for creating the game loop
     Level level;            //current level
-    EndScreen endScreen;    //displays the end screen when player beats game
+    LevelPack levelPack;    //compiled levels, null if there is no level pack and the level text files are read instead
+    LevelPreloader preloader;   //builds the next levels in the background
+    LevelGenerator generator;   //creates the levels after the built in ones in endless mode
+    EndScreen endScreen;    //displays the end screen when player beats game, only made once the last level is beaten
+    ActiveRenderer activeRenderer;  //draws the frames from the game thread, null when Swing repaints the panel
+    InputLog inputLog;      //records the keys pressed, null unless recording
+    InputQueue inputQueue = new InputQueue(64);     //keys pressed on the event thread, waiting to be carried out by the game thread
+    private HashMap<String, Level> keptLevels = new HashMap<String, Level>();     //levels that were loaded, by level name, if keepLevels is set
 
     public GamePanel() {
         tileSize = 100;
@@ -31,9 +74,37 @@ public class GamePanel extends JPanel implements Runnable {
         this.setFocusable(true);
 
         levelIndex = 1;     //set level index to first level
+        levelPack = openLevelPack();
+        builtInLevels = countLevels();
+        numLevels = builtInLevels;
+
+        //generated levels are 3x3, the size the level wall animation is drawn for
+        if(endless) {
+            numLevels = Integer.MAX_VALUE;
+            generator = new LevelGenerator(3, 3, LevelGenerator.DEFAULT_MIX, 6, 16, 8, 200000, Long.getLong("numlet.seed", System.nanoTime()));
+        }
+
+        preloader = new LevelPreloader(this, preloadDepth, preloadBudget);
+
+        if(recordInput != null) {
+            try {
+                inputLog = InputLog.create(recordInput);
+            } catch (IOException e) {
+                System.out.println("Input can't be recorded to " + recordInput + ".");
+                e.printStackTrace();
+            }
+        }
 
         loadLevel("Level" + levelIndex);        //load level based from index
-        endScreen = new EndScreen(this);            //instantiate end screen
+        Startup.mark("first level loaded");
+
+        if(renderer.equals("active"))
+            activeRenderer = new ActiveRenderer(this);
+    }
+
+    //the component to show in the window, the game panel itself or the canvas of the active renderer
+    public Component getView() {
+        return activeRenderer != null ? activeRenderer.getCanvas() : this;
     }
 
     public void startGameThread() {
@@ -41,62 +112,288 @@ public class GamePanel extends JPanel implements Runnable {
         gameThread.start();     //automatically calls the run method
     }
 
-    //loads the level
+    //opens the compiled level pack if there is one (made with LevelPack's main from the level text files). A pack that
+    //doesn't match the level text files any more isn't used, so an edited level is played as it is in its file. Without
+    //any level text files the pack is always used
+    private LevelPack openLevelPack() {
+        if(!new File(LevelPack.DEFAULT_PATH).isFile())
+            return null;
+
+        try {
+            LevelPack pack = LevelPack.open(LevelPack.DEFAULT_PATH);
+            List<File> files = new ArrayList<File>();
+            LevelSolver.addLevelFiles(new File("Assets/Levels"), files);
+
+            if(!pack.isUpToDate(files)) {
+                System.out.println("Level pack is out of date with the level text files, loading the level text files instead (run LevelPack to update it).");
+                return null;
+            }
+
+            return pack;
+        } catch (IOException e) {
+            System.out.println("Level pack could not be read, loading the level text files instead.");
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    //counts the levels Level1, Level2, ... that are in the level pack or have a level file, stopping at the first one missing
+    private int countLevels() {
+        int count = 0;
+
+        while(levelPack != null && levelPack.hasLevel("Level" + (count + 1))
+                || new File("Assets/Levels/Level" + (count + 1) + ".txt").isFile())
+            count++;
+
+        return count;
+    }
+
+    //loads the level, the preloaded one if it was built in the background, and starts preloading the levels after it
     public void loadLevel(String levelName) {
-        player.resetPlayer();       //reset the player to start position and clear the player string
+        long start = Metrics.start();
+        Level preloaded = keepLevels ? keptLevels.get(levelName) : null;
 
-        //first level is smaller than the others, so when player is on first level, load the corresponding level animation
-        if(levelIndex == 1)
-            level = new Level(this, player, "Animations/Level/Level1Wall", levelName);
+        if(preloaded == null)
+            preloaded = preloader.take(levelName);
+
+        if(preloaded != null)
+            level = preloaded;
         else
-            level = new Level(this, player, "Animations/Level/LevelWall", levelName);
+            level = createLevel(levelName, levelIndex);
+        if(keepLevels)
+            keptLevels.put(levelName, level);
         player.setLevel(level);
-        player.displayCurrentString();
+        player.clearMoves();        //moves typed ahead on the last level don't carry over
+        level.reset();      //put the player on the start position with the level's starting string
+        markAllDirty();     //the whole screen changes when a new level is loaded
+
+        preloader.preloadAfter(levelIndex);
+        Metrics.levelLoaded(levelName, preloaded != null, start);
+    }
+
+    //creates a level without touching the player or the current level, so this is safe to call from the preloader thread
+    Level createLevel(String levelName, int index) {
+        //first level is smaller than the others, so when player is on first level, load the corresponding level animation
+        String levelAsset = index == 1 ? "Animations/Level/Level1Wall" : "Animations/Level/LevelWall";
+
+        //in endless mode the levels after the built in ones are generated, otherwise
+        //read the level from the level pack if it has it, otherwise from its text file
+        LevelLayout layout = null;
+        if(endless && index > builtInLevels) {
+            layout = generateLayout(levelName, index);
+
+            //the generator settings may not allow any level, play the built in levels again rather than stopping the game
+            if(layout == null) {
+                String builtInName = "Level" + ((index - 1) % Math.max(builtInLevels, 1) + 1);
+                System.out.println("No level could be generated for " + levelName + " in " + MAX_GENERATE_ATTEMPTS + " attempts, playing " + builtInName + " instead.");
+                levelName = builtInName;
+            }
+        }
+        if(layout == null)
+            layout = levelPack != null ? levelPack.getLayout(levelName) : null;
+        if(layout != null)
+            return new Level(this, player, levelAsset, layout);
+        else
+            return new Level(this, player, levelAsset, levelName);
+    }
+
+    //generates the layout of an endless mode level, if the generator can't find a level for the index it tries the next ones,
+    //up to MAX_GENERATE_ATTEMPTS of them. Returns null if none of them gave a level
+    private LevelLayout generateLayout(String levelName, int index) {
+        for(int attempt = index; attempt < index + MAX_GENERATE_ATTEMPTS; attempt++) {
+            LevelLayout layout = generator.generate(levelName, attempt);
+            if(layout != null)
+                return layout;
+        }
+
+        return null;
+    }
+
+    //puts the current level back to its starting state without loading it again
+    public void resetLevel() {
+        level.reset();
+        markAllDirty();
+    }
+
+    //goes back to the first level, like the game was started again
+    public void restart() {
+        levelIndex = 1;
+        loadLevel("Level" + levelIndex);
+    }
+
+    //records a key that did something if the game is recording its input
+    public void recordKey(int keyCode) {
+        if(inputLog != null)
+            inputLog.record(updateCount, keyCode);
+    }
+
+    //shows or hides the metrics overlay
+    public void toggleOverlay() {
+        showFrameTime = !showFrameTime;
+        markAllDirty();     //clears the overlay when it's hidden
+    }
+
+    //stops preloading levels and exits the game
+    public void quit() {
+        preloader.shutdown();
+        if(inputLog != null)
+            inputLog.close();
+        System.exit(0);
     }
 
     //increments the level index and loads the next level
     public void loadNextLevel() {
+        //the end screen is only made once the last level is beaten, before the level index moves past it, since any
+        //frame drawn after that shows the end screen
+        if(levelIndex + 1 > numLevels && endScreen == null)
+            endScreen = new EndScreen(this);
+
         levelIndex++;
 
         if(levelIndex>numLevels) {
             System.out.println("End Reached!");
             //Display End Screen
+            preloader.cancelAll();
+            markAllDirty();
         } else {
             loadLevel("Level" + levelIndex);
         }
     }
 
-    //Creates the game loop
+    //Creates the game loop. Updates run at a fixed UPS and frames are drawn at FPS; in between, the game thread sleeps
+    //until the next update or frame is due instead of spinning
     @Override
     public void run() {
-        double drawInterval = 1000000000/FPS;       //draw the screen after this much time elapses
-        double delta = 0;                           //change in time
-        long lastTime = System.nanoTime();          //time from previous update
-        long currentTime;                           //current time
+        long updateInterval = 1000000000L / UPS;        //time between updates
+        long drawInterval = 1000000000L / FPS;          //time between frames
+        long nextUpdate = System.nanoTime();            //time the next update is due
+        long nextDraw = nextUpdate;                     //time the next frame is due
+        long lastUpdate = nextUpdate;                   //time of the last update, for interpolating between updates
+        boolean measureCpu = threadBean.isCurrentThreadCpuTimeSupported();
+        long cpuSinceDraw = 0;                          //CPU time used for updates since the last frame
 
         //gameloop
         while(gameThread != null) {  //while gameThread exists, keep updating game variables/objects and draw visuals with update values.
-            currentTime = System.nanoTime();
+            long currentTime = System.nanoTime();
+            long cpuStart = measureCpu ? threadBean.getCurrentThreadCpuTime() : 0;
+            int updates = 0;
 
-            delta += (currentTime - lastTime) / drawInterval;   //get change in time between last time through loop and now and divide by draw interval see if draw interval is reached
-                                                                //Once Delta hits 1
+            //run every update that is due, up to maxFrameSkip in a row so that a frame still gets drawn when the game falls behind
+            while(currentTime >= nextUpdate && updates < maxFrameSkip) {
+                update();
+                lastUpdate = nextUpdate;
+                nextUpdate += updateInterval;
+                updates++;
+            }
+
+            //if the game is still behind after catching up, drop the missed updates instead of trying to run them all later
+            if(currentTime - nextUpdate > updateInterval) {
+                nextUpdate = currentTime + updateInterval;
+                lastUpdate = currentTime;
+            }
 
-            lastTime = currentTime;
+            if(measureCpu)
+                cpuSinceDraw += threadBean.getCurrentThreadCpuTime() - cpuStart;
 
-            if(delta >= 1) {    //Once Delta reaches 1, then a full draw interval occurred and update and repaint can be called. Delta is reset
-                update();
-                repaint();
-                delta--;
+            currentTime = System.nanoTime();
+            if(currentTime >= nextDraw) {
+                interpolation = Math.min(1f, (currentTime - lastUpdate) / (float) updateInterval);
+                updateCpuTime = cpuSinceDraw;
+                cpuSinceDraw = 0;
+                //only draw what changed, nothing is drawn if the screen is static
+                if(activeRenderer != null) {
+                    boolean changed = takeDirty();
+                    Metrics.endFrameInterval(changed);
+                    if(changed)
+                        activeRenderer.render();
+                }
+                else {
+                    Metrics.endFrameInterval(repaintDirtyRegion());
+                }
+
+                nextDraw += drawInterval;
+                if(nextDraw < currentTime)
+                    nextDraw = currentTime + drawInterval;      //skip frames that were missed instead of drawing them back to back
             }
 
+            //sleep until the next update or frame is due
+            long wait = Math.min(nextUpdate, nextDraw) - System.nanoTime();
+            if(wait > 0)
+                LockSupport.parkNanos(wait);
+        }
+    }
+
+    //marks an area of the screen as changed so that it gets repainted with the next frame
+    public synchronized void markDirty(int x, int y, int width, int height) {
+        if(width <= 0 || height <= 0)
+            return;
+
+        //grow the dirty region to cover the area (Swing merges the repaint requests of a component into one area anyway)
+        if(!dirty) {
+            dirtyRegion.setBounds(x, y, width, height);
+            dirty = true;
+        } else {
+            int x2 = Math.max(dirtyRegion.x + dirtyRegion.width, x + width);
+            int y2 = Math.max(dirtyRegion.y + dirtyRegion.height, y + height);
+            dirtyRegion.x = Math.min(dirtyRegion.x, x);
+            dirtyRegion.y = Math.min(dirtyRegion.y, y);
+            dirtyRegion.width = x2 - dirtyRegion.x;
+            dirtyRegion.height = y2 - dirtyRegion.y;
         }
     }
 
+    //marks the area a tile is drawn in as changed
+    public void markDirty(Tile tile) {
+        markDirty(tile.getXPos(), tile.getYPos(), tile.getDrawSize(), tile.getDrawSize());
+    }
+
+    //marks the whole screen as changed
+    public void markAllDirty() {
+        markDirty(0, 0, screenWidth, screenHeight);
+    }
+
+    //requests a repaint of the area that changed since the last frame and clears it, returns true if there was anything to repaint
+    private synchronized boolean repaintDirtyRegion() {
+        if(showFrameTime)
+            markDirty(0, 0, OVERLAY_WIDTH, OVERLAY_HEIGHT);     //the overlay changes every frame
+
+        if(!dirty)
+            return false;
+
+        repaint(dirtyRegion);
+        dirty = false;
+        return true;
+    }
+
+    //returns true if anything changed since the last frame and clears the dirty region, for the active renderer which
+    //draws the whole screen every frame
+    private synchronized boolean takeDirty() {
+        if(showFrameTime)
+            return true;        //the overlay changes every frame
+
+        boolean changed = dirty;
+        dirty = false;
+        return changed;
+    }
+
     //draws all the visuals of the game
     public void paintComponent(Graphics g) {
+        long start = Metrics.start();
         super.paintComponent(g);
 
         Graphics2D g2D = (Graphics2D) g;    //converts to 2D for using particular 2d graphics functions
+        drawFrame(g2D);
+
+        g2D.dispose();
+        Metrics.endFrame(start, gameThread);
+        Startup.frameDrawn();
+    }
+
+    //draws the level and player, or the end screen, and the metrics overlay if it's shown. Used by paintComponent and by
+    //the active renderer
+    void drawFrame(Graphics2D g2D) {
+        boolean overlay = showFrameTime;       //read once, F3 can toggle it while the frame is drawn
+        long cpuStart = overlay ? threadBean.getCurrentThreadCpuTime() : 0;
 
         //if game isn't finished, draw level and player, otherwise draw end screen
         if(levelIndex<=numLevels) {
@@ -106,11 +403,45 @@ public class GamePanel extends JPanel implements Runnable {
             endScreen.draw(g2D);
         }
 
-        g2D.dispose();
+        if(overlay)
+            drawOverlay(g2D, cpuStart);
+    }
+
+    //draws the metrics overlay in the top left corner: the time and memory used per frame and by each phase of the game,
+    //the CPU time used by the last frame and the number of spritesheets decoded and scaled
+    private void drawOverlay(Graphics2D g2D, long cpuStart) {
+        paintCpuTime = threadBean.getCurrentThreadCpuTime() - cpuStart;
+
+        g2D.setColor(OVERLAY_BACKGROUND);
+        g2D.fillRect(0, 0, OVERLAY_WIDTH, OVERLAY_HEIGHT);
+        g2D.setColor(Color.WHITE);
+        g2D.setFont(OVERLAY_FONT);
+
+        int y = 16;
+        for(Metrics.Phase phase : Metrics.Phase.values()) {
+            g2D.drawString(Metrics.describe(phase), 10, y);
+            y += 15;
+        }
+
+        g2D.drawString(Metrics.describeAllocation(), 10, y);
+        g2D.drawString(String.format("CPU per frame: update %.2f ms, draw %.2f ms", updateCpuTime / 1000000.0, paintCpuTime / 1000000.0), 10, y + 15);
+        g2D.drawString("sprites decoded " + SpriteCache.getDecodes() + ", scaled " + SpriteCache.getScales() + ", " + renderer + " renderer", 10, y + 30);
     }
 
     //update the values and animations of the game
     public void update() {
+        long start = Metrics.start();
+
+        //carry out the keys pressed since the last update, here so that only the game thread changes the player and level.
+        //A recorded key gets the number of updates run before it, which is when Simulation presses it again
+        for(int code = inputQueue.poll(); code != InputQueue.EMPTY; code = inputQueue.poll()) {
+            if(player.pressKey(code))
+                Metrics.keyPressed(inputQueue.getPolledTime());
+        }
+
+        updateCount++;
+        AnimationClock.shared().tick();     //moves every animation on, the sprites only look their frame up
+
         //if game isn't finished, update level and player, otherwise update end screen
         if(levelIndex<=numLevels) {
             level.update();
@@ -118,5 +449,7 @@ public class GamePanel extends JPanel implements Runnable {
         } else {
             endScreen.update();
         }
+
+        Metrics.stopUpdate(start);
     }
 }
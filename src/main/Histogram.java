@@ -0,0 +1,98 @@
+package main;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//counts recorded values in buckets that get wider as the values get bigger, like an HdrHistogram: each power of two is
+//split into 32 buckets, so a percentile is within about 3% of the real value for anything from nanoseconds to minutes.
+//Recording a value doesn't allocate anything and values can be recorded from several threads at once
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 5;                       //each power of two is split into 2^5 buckets
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;   //enough buckets for any positive long
+
+    private AtomicLongArray counts = new AtomicLongArray(BUCKETS);     //number of values recorded in each bucket
+    private AtomicLong count = new AtomicLong();        //number of values recorded
+    private AtomicLong sum = new AtomicLong();          //sum of the values recorded, for the mean
+    private AtomicLong max = new AtomicLong();          //largest value recorded
+
+    //records a value, negative values are recorded as 0
+    public void record(long value) {
+        if(value < 0)
+            value = 0;
+
+        counts.incrementAndGet(bucketIndex(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+
+        long currentMax = max.get();
+        while(value > currentMax && !max.compareAndSet(currentMax, value))
+            currentMax = max.get();
+    }
+
+    //number of values recorded
+    public long getCount() {
+        return count.get();
+    }
+
+    //largest value recorded, 0 if nothing was recorded
+    public long getMax() {
+        return max.get();
+    }
+
+    //mean of the values recorded, 0 if nothing was recorded
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    //the value that the given percentage (0 to 100) of the recorded values are at or below, rounded up to the top of its
+    //bucket. Returns 0 if nothing was recorded
+    public long getValueAtPercentile(double percentile) {
+        long n = count.get();
+        if(n == 0)
+            return 0;
+
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+
+        for(int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if(seen >= target)
+                return Math.min(highestValueInBucket(i), max.get());
+        }
+
+        return max.get();
+    }
+
+    //removes all the recorded values
+    public void reset() {
+        for(int i = 0; i < BUCKETS; i++)
+            counts.set(i, 0);
+
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    //values below 32 get a bucket each, above that the bucket is picked by the highest set bit and the 5 bits after it
+    private static int bucketIndex(long value) {
+        if(value < SUB_BUCKETS)
+            return (int) value;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    //the largest value that goes in the bucket
+    private static long highestValueInBucket(int index) {
+        if(index < SUB_BUCKETS)
+            return index;
+
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lowest = (1L << exponent) + (index % SUB_BUCKETS) * width;
+        return lowest + width - 1;
+    }
+}
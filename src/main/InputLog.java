@@ -0,0 +1,135 @@
+package main;
+
+import java.awt.event.KeyEvent;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+//a recording of the keys pressed in a game, one line per key with the number of updates run before the key was pressed and
+//the key: "<update> <W|A|S|D|R|Esc>". Only keys that did something are recorded (a move key pressed while the player is
+//still moving or towards a cell without a tile is ignored by the game), so replaying the keys in order gives the same
+//game whatever the timing of the replay
+public class InputLog {
+    //a key in the log
+    public static class Entry {
+        private long update;        //number of updates run before the key was pressed
+        private int keyCode;        //the key, as a KeyEvent key code
+
+        public Entry(long update, int keyCode) {
+            this.update = update;
+            this.keyCode = keyCode;
+        }
+
+        public long getUpdate() {
+            return update;
+        }
+
+        public int getKeyCode() {
+            return keyCode;
+        }
+    }
+
+    private PrintWriter out;        //the log file being written
+
+    private InputLog(PrintWriter out) {
+        this.out = out;
+    }
+
+    //starts recording to the given file, replacing it if it exists. Each key is written straight away, so the log is
+    //complete even if the game is closed with the window's close button
+    public static InputLog create(String file) throws IOException {
+        return new InputLog(new PrintWriter(new FileWriter(file), true));
+    }
+
+    //records a key, called from the game thread when it carries the key out
+    public synchronized void record(long update, int keyCode) {
+        String name = keyName(keyCode);
+
+        if(name != null)
+            out.println(update + " " + name);
+    }
+
+    //writes what hasn't been written yet and closes the file
+    public synchronized void close() {
+        out.close();
+    }
+
+    //reads the keys of a log file, in the order they were pressed
+    public static List<Entry> read(String file) throws IOException {
+        List<Entry> entries = new ArrayList<Entry>();
+        BufferedReader in = new BufferedReader(new FileReader(file));
+
+        try {
+            String line;
+            int lineNumber = 0;
+
+            while((line = in.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if(line.isEmpty())
+                    continue;
+
+                String[] parts = line.split(" ");
+                int keyCode = parts.length == 2 ? keyCode(parts[1]) : KeyEvent.VK_UNDEFINED;
+                if(keyCode == KeyEvent.VK_UNDEFINED)
+                    throw new IOException(file + " line " + lineNumber + ": expected \"<update> <W|A|S|D|R|Esc>\", found \"" + line + "\"");
+
+                try {
+                    entries.add(new Entry(Long.parseLong(parts[0]), keyCode));
+                } catch (NumberFormatException e) {
+                    throw new IOException(file + " line " + lineNumber + ": \"" + parts[0] + "\" isn't an update number");
+                }
+            }
+        } finally {
+            in.close();
+        }
+
+        return entries;
+    }
+
+    //writes the keys to a log file
+    public static void write(List<Entry> entries, String file) throws IOException {
+        InputLog log = create(file);
+
+        for(Entry entry : entries)
+            log.record(entry.getUpdate(), entry.getKeyCode());
+
+        log.close();
+    }
+
+    //the name a key is written with, the arrow keys are written as the WASD key that does the same thing.
+    //Returns null for keys the game doesn't use
+    static String keyName(int keyCode) {
+        if(keyCode == KeyEvent.VK_W || keyCode == KeyEvent.VK_UP)
+            return "W";
+        else if(keyCode == KeyEvent.VK_A || keyCode == KeyEvent.VK_LEFT)
+            return "A";
+        else if(keyCode == KeyEvent.VK_S || keyCode == KeyEvent.VK_DOWN)
+            return "S";
+        else if(keyCode == KeyEvent.VK_D || keyCode == KeyEvent.VK_RIGHT)
+            return "D";
+        else if(keyCode == KeyEvent.VK_R)
+            return "R";
+        else if(keyCode == KeyEvent.VK_ESCAPE)
+            return "Esc";
+
+        return null;
+    }
+
+    //the key code of a key name written by keyName, VK_UNDEFINED if the name isn't known
+    static int keyCode(String name) {
+        switch(name) {
+            case "W": return KeyEvent.VK_W;
+            case "A": return KeyEvent.VK_A;
+            case "S": return KeyEvent.VK_S;
+            case "D": return KeyEvent.VK_D;
+            case "R": return KeyEvent.VK_R;
+            case "Esc": return KeyEvent.VK_ESCAPE;
+            default: return KeyEvent.VK_UNDEFINED;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package main;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//passes the keys pressed from the event thread to the game thread without locks: a ring buffer with one thread adding
+//keys (the event thread) and one thread taking them (the game thread, at the start of each update). Each side only
+//writes its own position, and a position is published after the slot it covers is written, so the other side never sees
+//a half written key
+public class InputQueue {
+    public static final int EMPTY = -1;     //returned by poll when there is no key, no key has a negative key code
+
+    private int[] keyCodes;         //the keys in the buffer
+    private long[] times;           //the System.nanoTime each key was pressed at
+    private int mask;               //capacity - 1, the capacity is a power of two so a position is turned into a slot with a mask
+    private AtomicLong head = new AtomicLong();     //position of the next key to take, only written by the game thread
+    private AtomicLong tail = new AtomicLong();     //position of the next key to add, only written by the event thread
+    private long polledTime;        //time the last key taken was pressed at, only used by the game thread
+
+    //capacity is rounded up to a power of two
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+
+        keyCodes = new int[size];
+        times = new long[size];
+        mask = size - 1;
+    }
+
+    //adds a key, returns false and drops the key if the buffer is full (the game thread has stopped taking keys)
+    public boolean offer(int keyCode, long time) {
+        long position = tail.get();
+
+        if(position - head.get() > mask)
+            return false;
+
+        int slot = (int) position & mask;
+        keyCodes[slot] = keyCode;
+        times[slot] = time;
+        tail.lazySet(position + 1);     //publishes the slot, the writes above are visible to the game thread before the new tail
+        return true;
+    }
+
+    //takes the oldest key, or returns EMPTY if there is none. The time the key was pressed at is then returned by getPolledTime
+    public int poll() {
+        long position = head.get();
+
+        if(position == tail.get())
+            return EMPTY;
+
+        int slot = (int) position & mask;
+        int keyCode = keyCodes[slot];
+        polledTime = times[slot];
+        head.lazySet(position + 1);     //frees the slot for the event thread
+        return keyCode;
+    }
+
+    //the time the last key taken with poll was pressed at
+    public long getPolledTime() {
+        return polledTime;
+    }
+
+    //number of keys waiting to be taken
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+}
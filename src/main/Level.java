@@ -1,10 +1,9 @@
 package main;
 
 import java.awt.*;
-import java.io.File;
+import java.awt.image.BufferedImage;
 import java.io.FileNotFoundException;
 import java.util.LinkedList;
-import java.util.Scanner;
 
 public class Level {
 
@@ -14,16 +13,25 @@ public class Level {
     private int yPos;                   //y position of where level is drawn
     private int startX;                 //starting x position for player in level
     private int startY;                 //starting y position for player in level
+    private String startString;         //the string the player starts the level with
     private String goal;                //the string for the goal the player is trying to achieve in solving the puzzle
     private LinkedList<Tile> goalObject;          //array that stores the goal tiles so that it can be displayed
     private int levelWidth;             //width of level in action tiles
     private int levelHeight;            //height of level in action tiles
     private LinkedList<Tile> actionTiles;         //stores the action tile objects in the level
+    private Tile[] tileGrid;            //action tiles indexed by cell (row-major), null where the player can't stand
+    private int gridColumns;            //number of columns in the tile grid
+    private int gridRows;               //number of rows in the tile grid (lock row, level rows and start row)
+    private int gridX;                  //x position of the top left cell of the tile grid
+    private int gridY;                  //y position of the top left cell of the tile grid
     private boolean lockActive;         //determines whether the lock is currently active or not
-    private boolean hasStartString;     //a boolean that is triggered if another line in the level file is detected after the player character, indicating there is startString to read in
+    private LevelLayout layout;         //layout of the level as read from the level file
     private String currLevelName;       //store the current level name
     private Tile lineTile;                  //visual line to indicate to player they can't move back to start position
     private boolean displayLine;                //used to trigger displaying the line mentioned above
+    private BufferedImage[] tileLayers;         //goal and action tiles pre-rendered into one image per tile animation frame
+    private Rectangle tileLayerBounds;          //area of the screen covered by the tile layer images
+    private Tile lockTile;                      //the lock/end tile, drawn on top of the tile layer while the lock is active
 
     private GamePanel gp;               //game panel object
     private Player player;              //player object
@@ -33,14 +41,32 @@ public class Level {
         this.gp = gp;
         this.player = player;
 
+        initLevel(levelName);
+        LoadLevel("Assets/Levels/" + levelName + ".txt");       //load the level layout
+        setupLevel(levelAsset);
+    }
+
+    //constructor to instantiate Level object from a layout that was already read
+    public Level (GamePanel gp, Player player, String levelAsset, LevelLayout layout) {
+        this.gp = gp;
+        this.player = player;
+
+        initLevel(layout.getName());
+        LoadLevel(layout);
+        setupLevel(levelAsset);
+    }
+
+    //initialize the level state before the layout is loaded
+    private void initLevel(String levelName) {
         goalObject = new LinkedList<Tile>();
         actionTiles = new LinkedList<Tile>();
         displayLine = false;
         lockActive = true;
-        hasStartString = false;
         currLevelName = levelName;
-        LoadLevel("Assets/Levels/" + levelName + ".txt");       //load the level layout
+    }
 
+    //setup the level animation, position and goal once the layout is loaded
+    private void setupLevel(String levelAsset) {
         //setup and start the level animation
         spritesheet = new Sprite(levelAsset, (levelWidth + 2) * gp.tileSize, (levelHeight + 4) * gp.tileSize);
         animation = new Animation(spritesheet.getSpritesheetFrames(), 12);
@@ -52,137 +78,256 @@ public class Level {
 
         //display the goal objective
         displayGoal();
+
+        //pre-render the tiles that never change, so drawing the level is a couple of blits instead of one scaled draw per tile
+        createTileLayers();
     }
 
-    //Loads the level layout based from text file passed through
-    public void LoadLevel(String levelName) {
-        int lineIndex = 0;      //keeps track of line number in the text file
+    //renders the goal and action tiles into one image per frame of the tile animation. All of these tiles are created
+    //together and updated every game update with the same frame delay, so they are always on the same frame.
+    //The lock tile is left out because it disappears when the lock is opened, it's drawn on its own instead
+    private void createTileLayers() {
+        lockTile = null;
+        tileLayers = null;
+        tileLayerBounds = null;
+
+        Tile reference = null;      //tile used to tell which frame the tiles are on
+        for(int i=0; i<actionTiles.size(); i++) {
+            Tile tile = actionTiles.get(i);
+
+            if(tile.getTileType() == Tile.TileType.END) {
+                lockTile = tile;
+                continue;
+            }
 
-        try {
-            //access the text file
-            File levelFile = new File(levelName);
-            Scanner fileReader = new Scanner(levelFile);
+            tileLayerBounds = addTileBounds(tileLayerBounds, tile);
+            reference = tile;
+        }
+        for(int i = 0; i< goalObject.size(); i++) {
+            tileLayerBounds = addTileBounds(tileLayerBounds, goalObject.get(i));
+            reference = goalObject.get(i);
+        }
 
-            //read through each line of the text file
-            while(fileReader.hasNextLine()) {
-                String line = fileReader.nextLine();
+        if(reference == null)
+            return;
 
-                //the first line will be the goal objective for the player, so goal is assigned from first line
-                if(lineIndex == 0) {
-                    goal = line.toUpperCase();
-                }
-                //second line will indicate the size of the level (width and height)
-                else if (lineIndex == 1) {
-                    String[] dimensions = line.split(" ");
-                    if(dimensions.length == 2) {
-                        levelWidth = Integer.parseInt(dimensions[0]);   //assign the first number as the level's width
-                        levelHeight = Integer.parseInt(dimensions[1]);  //assign the second number as the level's height
-                    }
-                    else {
-                        System.out.println("Level file has incorrect number of dimensions for level");      //throws error for incorrect number of dimensions
-                    }
-                }
-                else {
-                    int offsetCount = 0;        //used to determine the amount of offset on the index when there is character Swap tile
-                    int oddWidth = 0;           //variable used to correct tile position depending on whether or not that level width is an odd number of tiles
-                    int oddHeight = 0;          //variable used to correct tile position depending on whether or not that level height is an odd number of tiles
-
-                    //check if the width or height is odd or even so as to get the right positioning relative to the screen
-                    if(levelWidth%2==1)
-                        oddWidth = gp.tileSize / 2;
-                    if(levelHeight%2==1)
-                        oddHeight = gp.tileSize / 2;
-
-                    //for each character in the line instantiate the tiles with their values and positions
-                    for(int i = 0; i < line.length(); i++) {
-                        //if the character detected is the '&' symbol, this indicates the lock/end tile of the level
-                        if(line.charAt(i) == '&') {
-                            //set level lock object's position here (relative to the level grid coordinates)
-                            int x = (gp.screenWidth / 2) - oddWidth - gp.tileSize + (gp.tileSize * (i));
-                            int y = (gp.screenHeight / 2) - oddHeight - gp.tileSize + (gp.tileSize * (lineIndex-3));
-
-                            actionTiles.add(new Tile("Lock", gp.tileSize, x, y, Tile.TileType.END));       //add lock/end tile to the tile list
-                        }
-
-                        //if the character detected is a '!' symbol, this indicates the start position/tile of the player
-                        else if(line.charAt(i) == '!') {
-                            //set player's position here (relative to the level grid coordinates)
-                            int x = (gp.screenWidth / 2) - oddWidth - gp.tileSize + (gp.tileSize * (i));
-                            int y = (gp.screenHeight / 2) - oddHeight - gp.tileSize + (gp.tileSize * (lineIndex-3));
-
-                            player.setPosition(x, y);
-
-                            //set the line tile for when the player leaves the start position
-                            lineTile = new Tile("Animations/Level/Line", gp.tileSize, x, y);
-
-                            //check for another line of text (this is for levels that have a starting string for the player), otherwise set the player string to empty string
-                            if(fileReader.hasNextLine())
-                                hasStartString=true;
-                            else
-                                player.setCurrentString("");
-                        }
-                        //set the player string to the starting value as indicated in the level's text file
-                        else if(hasStartString) {
-                            player.setCurrentString(line);
-                        }
-                        else {
-                            //get position for the tile
-                            int x = (gp.screenWidth / 2) - oddWidth - gp.tileSize + (gp.tileSize * (i-offsetCount));
-                            int y = (gp.screenHeight / 2) - oddHeight - gp.tileSize + (gp.tileSize * (lineIndex-3));
-
-                            //if the character value is '+', create an addition tile
-                            if(line.charAt(i) == '+')
-                                actionTiles.add(new Tile(line.charAt(i), "add", gp.tileSize, x, y));
-                            //if the character value is '-', create a subtraction tile
-                            else if(line.charAt(i) == '-')
-                                actionTiles.add(new Tile(line.charAt(i), "sub", gp.tileSize, x, y));
-                            //if the character value is '*', create a multiplication tile
-                            else if(line.charAt(i) == '*')
-                                actionTiles.add(new Tile(line.charAt(i), "mult", gp.tileSize, x, y));
-                            //if the character value is '/', create a division tile
-                            else if(line.charAt(i) == '/')
-                                actionTiles.add(new Tile(line.charAt(i), "div", gp.tileSize, x, y));
-                            //if the character value is '%', create a subtraction tile
-                            else if(line.charAt(i) == '%')
-                                actionTiles.add(new Tile(line.charAt(i), "mod", gp.tileSize, x, y));
-                            //if the character value is '@', create a character for character swap tile
-                            else if(line.charAt(i) == '@') {
-                                //get the first swap character's value and create a tile for it
-                                Tile swapVal1 = new Tile(line.charAt(i + 1), "" + line.charAt(i + 1), gp.tileSize, x + 15, y + 10);
-                                swapVal1.scale(0.3f);   //scale it down to fit inside the parent tile
-
-                                //get the second swap character's value and create a tile for it
-                                Tile swapVal2 = new Tile(line.charAt(i + 2), "" + line.charAt(i + 2), gp.tileSize, x + 60, y + 60);
-                                swapVal2.scale(0.3f);   //scale it down to fit inside the parent tile
-
-                                //instantiate the swap tile
-                                actionTiles.add(new Tile("Swap", gp.tileSize, x, y, swapVal1, swapVal2));
-                                offsetCount = offsetCount + 2;
-                                i = i+2;    //increment the character index by two since the next two characters are for determining the swap values when a swap tile charcter is detected
-                            }
-                            //if the character is a '#', this indicates a swap tile that swaps all letters to numbers and numbers to letters in the player's string
-                            else if(line.charAt(i) == '#')
-                                actionTiles.add(new Tile("Swap_LN", gp.tileSize, x, y, Tile.TileType.SWAP_LN));
-                            //if the character is not a space or any of the above characters, then it will be a number or letter tile
-                            else if(line.charAt(i) != ' ') {
-                                if(line.charAt(i) == '0')
-                                    actionTiles.add(new Tile(line.charAt(i), "10", gp.tileSize, x, y));
-                                else
-                                    actionTiles.add(new Tile(line.charAt(i), "" + line.charAt(i), gp.tileSize, x, y));
-                            }
-                        }
-                    }
-                }
+        tileLayers = new BufferedImage[reference.getNumFrames()];
+        for(int frame = 0; frame < tileLayers.length; frame++) {
+            tileLayers[frame] = SpriteCache.createCompatibleImage(tileLayerBounds.width, tileLayerBounds.height);
 
-                lineIndex++;
+            Graphics2D layerG2D = tileLayers[frame].createGraphics();
+            layerG2D.translate(-tileLayerBounds.x, -tileLayerBounds.y);      //draw the tiles at their screen positions
+            for(int i = 0; i< goalObject.size(); i++) {
+                goalObject.get(i).draw(layerG2D, frame);
             }
+            for(int i=0; i<actionTiles.size();i++) {
+                if(actionTiles.get(i) != lockTile)
+                    actionTiles.get(i).draw(layerG2D, frame);
+            }
+            layerG2D.dispose();
+        }
+    }
+
+    //grows the bounds to include the area the tile is drawn in
+    private Rectangle addTileBounds(Rectangle bounds, Tile tile) {
+        Rectangle tileBounds = new Rectangle(tile.getXPos(), tile.getYPos(), tile.getDrawSize(), tile.getDrawSize());
+
+        if(bounds == null)
+            return tileBounds;
 
-            fileReader.close();
+        bounds.add(tileBounds);
+        return bounds;
+    }
+
+    //Loads the level layout based from text file passed through
+    public void LoadLevel(String levelName) {
+        try {
+            LoadLevel(LevelLayout.load(levelName));       //read the level file into a layout of tile characters
         } catch (FileNotFoundException e) {
             System.out.println("Specified file could not be found.");
             e.printStackTrace();
         }
+    }
+
+    //creates the tiles of the level from its layout
+    public void LoadLevel(LevelLayout layout) {
+        this.layout = layout;
+
+        goal = layout.getGoal();
+        levelWidth = layout.getLevelWidth();
+        levelHeight = layout.getLevelHeight();
+
+        createTileGrid();
+
+        //for each cell in the layout instantiate the tiles with their values and positions
+        for(int row = 0; row < layout.getRows(); row++) {
+            for(int column = 0; column < layout.getColumns(); column++) {
+                char c = layout.getCell(column, row);
+
+                //get position for the tile
+                int x = gridX + gp.tileSize * column;
+                int y = gridY + gp.tileSize * row;
+
+                //if the character is the '&' symbol, this indicates the lock/end tile of the level
+                if(c == LevelLayout.END)
+                    addActionTile(new Tile("Lock", gp.tileSize, x, y, Tile.TileType.END), column, row);       //add lock/end tile to the tile list
+                //if the character value is '+', create an addition tile
+                else if(c == '+')
+                    addActionTile(new Tile(c, "add", gp.tileSize, x, y), column, row);
+                //if the character value is '-', create a subtraction tile
+                else if(c == '-')
+                    addActionTile(new Tile(c, "sub", gp.tileSize, x, y), column, row);
+                //if the character value is '*', create a multiplication tile
+                else if(c == '*')
+                    addActionTile(new Tile(c, "mult", gp.tileSize, x, y), column, row);
+                //if the character value is '/', create a division tile
+                else if(c == '/')
+                    addActionTile(new Tile(c, "div", gp.tileSize, x, y), column, row);
+                //if the character value is '%', create a subtraction tile
+                else if(c == '%')
+                    addActionTile(new Tile(c, "mod", gp.tileSize, x, y), column, row);
+                //if the character value is '@', create a character for character swap tile
+                else if(c == LevelLayout.SWAP) {
+                    char value1 = layout.getSwapValue1(column, row);
+                    char value2 = layout.getSwapValue2(column, row);
+
+                    //get the first swap character's value and create a tile for it
+                    Tile swapVal1 = new Tile(value1, "" + value1, gp.tileSize, x + 15, y + 10);
+                    swapVal1.scale(0.3f);   //scale it down to fit inside the parent tile
+
+                    //get the second swap character's value and create a tile for it
+                    Tile swapVal2 = new Tile(value2, "" + value2, gp.tileSize, x + 60, y + 60);
+                    swapVal2.scale(0.3f);   //scale it down to fit inside the parent tile
+
+                    //instantiate the swap tile
+                    addActionTile(new Tile("Swap", gp.tileSize, x, y, swapVal1, swapVal2), column, row);
+                }
+                //if the character is a '#', this indicates a swap tile that swaps all letters to numbers and numbers to letters in the player's string
+                else if(c == LevelLayout.SWAP_LN)
+                    addActionTile(new Tile("Swap_LN", gp.tileSize, x, y, Tile.TileType.SWAP_LN), column, row);
+                //if the character is not empty or any of the above characters, then it will be a number or letter tile
+                else if(c != LevelLayout.EMPTY) {
+                    if(c == '0')
+                        addActionTile(new Tile(c, "10", gp.tileSize, x, y), column, row);
+                    else
+                        addActionTile(new Tile(c, "" + c, gp.tileSize, x, y), column, row);
+                }
+            }
+        }
+
+        //get the player's start position (relative to the level grid coordinates), the player is put there by reset
+        if(layout.getStartColumn() >= 0) {
+            startX = gridX + gp.tileSize * layout.getStartColumn();
+            startY = gridY + gp.tileSize * layout.getStartRow();
+
+            //set the line tile for when the player leaves the start position
+            lineTile = new Tile("Animations/Level/Line", gp.tileSize, startX, startY);
+        }
+
+        //the player's starting string as indicated in the level's text file
+        startString = layout.getStartString();
+    }
+
+    //puts the level and the player back to how they are at the start of the level: the lock is active, the line is hidden and
+    //the player is on the start position with the starting string. The tiles and images of the level are kept as they are,
+    //so this is also how the player gets set up when the level is first shown
+    public void reset() {
+        setLockActive(true);
+        displayLine = false;
+
+        player.resetPlayer();
+        player.setPosition(startX, startY);
+        player.setCurrentString(startString);
+        player.displayCurrentString();
+    }
+
+    //creates the empty tile grid once the level dimensions are known. The grid has a row for the lock above the level
+    //and a row for the start position below it, and its top left cell lines up with the tile positions set in LoadLevel
+    private void createTileGrid() {
+        int oddWidth = 0;
+        int oddHeight = 0;
+
+        if(levelWidth%2==1)
+            oddWidth = gp.tileSize / 2;
+        if(levelHeight%2==1)
+            oddHeight = gp.tileSize / 2;
+
+        gridColumns = Math.max(levelWidth, 0);
+        gridRows = Math.max(levelHeight + 2, 0);
+        gridX = (gp.screenWidth / 2) - oddWidth - gp.tileSize;
+        gridY = (gp.screenHeight / 2) - oddHeight - gp.tileSize * 2;
+        tileGrid = new Tile[gridColumns * gridRows];
+    }
+
+    //adds a tile to the list of action tiles and to its cell in the tile grid
+    private void addActionTile(Tile tile, int column, int row) {
+        actionTiles.add(tile);
+
+        if(tileGrid != null && column >= 0 && column < gridColumns && row >= 0 && row < gridRows)
+            tileGrid[row * gridColumns + column] = tile;
+    }
+
+    //returns the action tile in the given cell of the level, or null if there is no tile there
+    public Tile getTileAt(int column, int row) {
+        if(tileGrid == null || column < 0 || column >= gridColumns || row < 0 || row >= gridRows)
+            return null;
+
+        return tileGrid[row * gridColumns + column];
+    }
+
+    //returns the action tile at the given screen position, or null if there is no tile there
+    //(positions that don't line up exactly with a cell never have a tile, same as comparing against each tile's position)
+    public Tile getTileAtPosition(float x, float y) {
+        int column = getColumn(x);
+        int row = getRow(y);
+
+        if(column < 0 || row < 0)
+            return null;
+
+        return getTileAt(column, row);
+    }
+
+    //returns true if the player is allowed to stand in the given cell (there is a tile, and if it's the end tile, the lock isn't active)
+    public boolean isPassable(int column, int row) {
+        Tile tile = getTileAt(column, row);
+
+        if(tile == null)
+            return false;
+
+        return tile.getTileType() != Tile.TileType.END || !lockActive;
+    }
+
+    //same as isPassable, but for a screen position
+    public boolean isPassableAtPosition(float x, float y) {
+        int column = getColumn(x);
+        int row = getRow(y);
+
+        if(column < 0 || row < 0)
+            return false;
+
+        return isPassable(column, row);
+    }
+
+    //get the grid column for an x position, or -1 if the position isn't on the grid
+    public int getColumn(float x) {
+        float offset = x - gridX;
+        int column = (int) (offset / gp.tileSize);
+
+        if(offset < 0 || column * gp.tileSize != offset)
+            return -1;
 
+        return column;
+    }
+
+    //get the grid row for a y position, or -1 if the position isn't on the grid
+    public int getRow(float y) {
+        float offset = y - gridY;
+        int row = (int) (offset / gp.tileSize);
+
+        if(offset < 0 || row * gp.tileSize != offset)
+            return -1;
+
+        return row;
     }
 
     //displays the goal objective for the player in the level
@@ -221,6 +366,13 @@ public class Level {
 
     //sets the lock object as either active or inactive (true or false)
     public void setLockActive(boolean isActive) {
+        //the lock tile is only drawn while it's active, so redraw its area when that changes
+        if(lockActive != isActive) {
+            Tile lockTile = getTileAt(layout.getEndColumn(), layout.getEndRow());
+            if(lockTile != null)
+                gp.markDirty(lockTile);
+        }
+
         lockActive = isActive;
     }
 
@@ -234,44 +386,74 @@ public class Level {
         return levelHeight;
     }
 
+    //get the layout of the level as read from the level file
+    public LevelLayout getLayout() {
+        return layout;
+    }
+
+    //get the memory used by the level's own images (the pre-rendered tile layers), in bytes
+    public long getImageBytes() {
+        long bytes = 0;
+
+        if(tileLayers != null)
+            for(int i = 0; i < tileLayers.length; i++)
+                bytes += (long) tileLayers[i].getWidth() * tileLayers[i].getHeight() * 4;
+
+        return bytes;
+    }
+
     //get the name of the current level
     public String getCurrLevelName() {
         return currLevelName;
     }
 
-    //triggers the line at the start of the level to display
+    //triggers the line at the start of the level to display, its animation starts from the first frame when it appears
     public void triggerDisplayLine() {
+        if(!displayLine && lineTile != null) {
+            lineTile.restartAnimation();
+            gp.markDirty(lineTile);
+        }
+
         displayLine = true;
     }
 
     //draws the goal objective and tiles of the level
     public void draw(Graphics2D g2D) {
+        long start = Metrics.start();
         g2D.drawImage((Image)animation.getCurrentFrame(), xPos, yPos, null);
-        for(int i = 0; i< goalObject.size(); i++) {
-            goalObject.get(i).draw(g2D);
-        }
-        for(int i=0; i<actionTiles.size();i++) {
-            if(actionTiles.get(i).getTileType() != Tile.TileType.END)
-                actionTiles.get(i).draw(g2D);
-            else if(lockActive)
-                actionTiles.get(i).draw(g2D);
+
+        //draw the pre-rendered goal and action tiles for the frame the tiles are on
+        if(tileLayers != null) {
+            int frame = goalObject.size() > 0 ? goalObject.getFirst().getFrameIndex() : actionTiles.getFirst().getFrameIndex();
+            g2D.drawImage(tileLayers[frame % tileLayers.length], tileLayerBounds.x, tileLayerBounds.y, null);
         }
 
+        if(lockActive && lockTile != null)
+            lockTile.draw(g2D);
+
         if(displayLine)
             lineTile.draw(g2D);
+
+        Metrics.stop(Metrics.Phase.LEVEL_DRAW, start);
     }
 
-    //updates the animations of the goal objective and tiles of the level
+    //updates the animations of the goal objective and tiles of the level, and marks the tiles whose frame changed to be redrawn
     public void update() {
-        animation.update();
-        for(int i = 0; i< goalObject.size(); i++) {
-            goalObject.get(i).update();
-        }
-        for(int i=0; i<actionTiles.size();i++) {
-            actionTiles.get(i).update();
+        //the level animation covers the whole level, so redraw all of it when its frame changes
+        if(animation.update())
+            gp.markDirty(xPos, yPos, (levelWidth + 2) * gp.tileSize, (levelHeight + 4) * gp.tileSize);
+
+        //the goal and action tiles run in step on the animation clock (the tile layers rely on it), so when one of them
+        //changes frame they all do and the tile layer and the lock need to be redrawn
+        Tile frameTile = goalObject.size() > 0 ? goalObject.getFirst() : actionTiles.size() > 0 ? actionTiles.getFirst() : null;
+        if(frameTile != null && frameTile.update()) {
+            if(tileLayerBounds != null)
+                gp.markDirty(tileLayerBounds.x, tileLayerBounds.y, tileLayerBounds.width, tileLayerBounds.height);
+            if(lockTile != null)
+                gp.markDirty(lockTile);
         }
 
-        if(displayLine)
-            lineTile.update();
+        if(displayLine && lineTile.update())
+            gp.markDirty(lineTile);
     }
 }
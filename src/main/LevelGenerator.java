@@ -0,0 +1,245 @@
+package main;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+//creates random levels: fills a grid with tiles picked from a tile mix, then searches every string the player can reach
+//the lock with and picks one that takes at least a minimum number of moves as the goal. Each level only depends on the
+//seed and its index, so levels can be generated in any order and on any number of threads
+public class LevelGenerator {
+    public static final String DEFAULT_MIX = "++--**//%%123456789123456789ABCDEF@#";    //tile mix used if none is given
+
+    private static final String SWAP_VALUES = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";  //characters a swap tile can swap
+    private static final int MAX_ATTEMPTS = 200;        //grids tried for a level before giving up
+
+    private int width;                  //width of the generated levels in tiles
+    private int height;                 //height of the generated levels in tiles
+    private String mix;                 //characters tiles are picked from, a character that appears more often is picked more often ('@' is a swap tile, ' ' a hole)
+    private int minMoves;               //fewest moves the shortest solution of a level may take
+    private int maxMoves;               //most moves searched when looking for goals
+    private int maxGoalLength;          //longest goal string, so the goal fits on the screen
+    private long nodeBudget;            //most states searched per grid
+    private long seed;                  //seed all levels are generated from
+
+    public LevelGenerator(int width, int height, String mix, int minMoves, int maxMoves, int maxGoalLength, long nodeBudget, long seed) {
+        this.width = width;
+        this.height = height;
+        this.mix = mix;
+        this.minMoves = minMoves;
+        this.maxMoves = maxMoves;
+        this.maxGoalLength = maxGoalLength;
+        this.nodeBudget = nodeBudget;
+        this.seed = seed;
+    }
+
+    //generates the level with the given index as the lines of a level text file, or returns null if no grid with a goal
+    //that needs at least minMoves moves was found. Is safe to call from several threads at once
+    public List<String> generateLines(int index) {
+        Random random = new Random(seed * 1000003 + index);
+        LevelSolver solver = new LevelSolver(LevelSolver.Strategy.BFS, nodeBudget);
+
+        for(int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            List<String> lines = createGrid(random);
+            HashMap<String, Integer> goals = solver.findGoals(LevelLayout.parse("", lines), maxMoves);
+
+            //pick one of the goals that can't be reached in fewer than minMoves moves
+            List<String> candidates = new ArrayList<String>();
+
+            for(Map.Entry<String, Integer> goal : goals.entrySet()) {
+                if(isUsableGoal(goal.getKey()) && goal.getValue() >= minMoves)
+                    candidates.add(goal.getKey());
+            }
+
+            if(candidates.isEmpty())
+                continue;
+
+            candidates.sort(null);      //the goals come out of a HashMap, sort them so the pick only depends on the random seed
+            String goal = candidates.get(random.nextInt(candidates.size()));
+            int moves = goals.get(goal);
+            lines.set(0, goal);
+
+            //make sure the game will see the level the same way (the goal is read back and the shortest solution matches)
+            LevelSolver.Result result = solver.solve(LevelLayout.parse("", lines));
+            if(result.getStatus() == LevelSolver.Status.SOLVED && result.getMoves().length() == moves)
+                return lines;
+        }
+
+        return null;
+    }
+
+    //generates the level with the given index as a layout with the given name, or null if no level was found
+    public LevelLayout generate(String name, int index) {
+        List<String> lines = generateLines(index);
+
+        if(lines == null)
+            return null;
+
+        return LevelLayout.parse(name, lines);
+    }
+
+    //fills a grid with random tiles and puts the lock at the top and the start position at the bottom, both in the middle
+    //column like the level wall animation is drawn. The goal line is left empty for the search to fill in
+    private List<String> createGrid(Random random) {
+        List<String> lines = new ArrayList<String>();
+        int lockColumn = width / 2;
+        int startColumn = width / 2;
+
+        lines.add("");
+        lines.add(width + " " + height);
+        lines.add(rowWith(lockColumn, LevelLayout.END));
+
+        for(int row = 0; row < height; row++) {
+            StringBuilder line = new StringBuilder();
+
+            for(int column = 0; column < width; column++) {
+                char c = mix.charAt(random.nextInt(mix.length()));
+
+                //the cells next to the lock and the start position always have a tile, otherwise the level can't be played
+                boolean needsTile = row == 0 && column == lockColumn || row == height - 1 && column == startColumn;
+                while(needsTile && c == ' ')
+                    c = mix.charAt(random.nextInt(mix.length()));
+
+                line.append(c);
+                if(c == LevelLayout.SWAP) {
+                    line.append(SWAP_VALUES.charAt(random.nextInt(SWAP_VALUES.length())));
+                    line.append(SWAP_VALUES.charAt(random.nextInt(SWAP_VALUES.length())));
+                }
+            }
+
+            lines.add(line.toString());
+        }
+
+        lines.add(rowWith(startColumn, LevelLayout.START));
+        return lines;
+    }
+
+    //a row that is empty except for one character
+    private String rowWith(int column, char c) {
+        StringBuilder line = new StringBuilder();
+        for(int i = 0; i < width; i++)
+            line.append(i == column ? c : ' ');
+        return line.toString();
+    }
+
+    //a goal has to fit on the screen, be read back the same from the level file and only use characters that have a tile image
+    private boolean isUsableGoal(String goal) {
+        if(goal.isEmpty() || goal.length() > maxGoalLength || !goal.equals(goal.trim()))
+            return false;
+
+        for(int i = 0; i < goal.length(); i++) {
+            char c = goal.charAt(i);
+            if(c != ' ' && c != '.' && c != '-' && (c < '0' || c > '9') && (c < 'A' || c > 'Z'))
+                return false;
+        }
+
+        return true;
+    }
+
+    //generates levels in parallel and writes them as level text files or as a level pack.
+    //Options: --count=<levels>, --width=<tiles>, --height=<tiles>, --mix=<tile characters>, --min-moves=<moves>,
+    //--max-moves=<moves>, --max-goal-length=<characters>, --budget=<max states searched per grid>, --seed=<seed>,
+    //--threads=<number of threads>, --prefix=<level name prefix>, --out=<directory for text files> or --pack=<pack file>
+    public static void main(String[] args) throws IOException {
+        int count = 100;
+        int width = 3;
+        int height = 3;
+        String mix = DEFAULT_MIX;
+        int minMoves = 6;
+        int maxMoves = 16;
+        int maxGoalLength = 8;
+        long budget = 200000;
+        long seed = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String prefix = "Generated";
+        String outDirectory = null;
+        String packFile = null;
+
+        for(String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+
+            if(arg.startsWith("--count="))
+                count = Integer.parseInt(value);
+            else if(arg.startsWith("--width="))
+                width = Integer.parseInt(value);
+            else if(arg.startsWith("--height="))
+                height = Integer.parseInt(value);
+            else if(arg.startsWith("--mix="))
+                mix = value;
+            else if(arg.startsWith("--min-moves="))
+                minMoves = Integer.parseInt(value);
+            else if(arg.startsWith("--max-moves="))
+                maxMoves = Integer.parseInt(value);
+            else if(arg.startsWith("--max-goal-length="))
+                maxGoalLength = Integer.parseInt(value);
+            else if(arg.startsWith("--budget="))
+                budget = Long.parseLong(value);
+            else if(arg.startsWith("--seed="))
+                seed = Long.parseLong(value);
+            else if(arg.startsWith("--threads="))
+                threads = Integer.parseInt(value);
+            else if(arg.startsWith("--prefix="))
+                prefix = value;
+            else if(arg.startsWith("--out="))
+                outDirectory = value;
+            else if(arg.startsWith("--pack="))
+                packFile = value;
+        }
+
+        if(outDirectory == null && packFile == null)
+            outDirectory = "Generated";
+
+        long start = System.nanoTime();
+        LevelGenerator generator = new LevelGenerator(width, height, mix, minMoves, maxMoves, maxGoalLength, budget, seed);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<ForkJoinTask<List<String>>> tasks = new ArrayList<ForkJoinTask<List<String>>>(count);
+
+        for(int i = 1; i <= count; i++) {
+            int index = i;
+            tasks.add(pool.submit(() -> generator.generateLines(index)));
+        }
+
+        List<LevelLayout> layouts = new ArrayList<LevelLayout>();
+        int failed = 0;
+
+        if(outDirectory != null)
+            new File(outDirectory).mkdirs();
+
+        for(int i = 0; i < tasks.size(); i++) {
+            List<String> lines = tasks.get(i).join();
+            String name = prefix + (i + 1);
+
+            if(lines == null) {
+                System.out.println(name + " could not be generated.");
+                failed++;
+                continue;
+            }
+
+            if(outDirectory != null) {
+                PrintWriter out = new PrintWriter(new FileWriter(new File(outDirectory, name + ".txt")));
+                for(String line : lines)
+                    out.println(line);
+                out.close();
+            }
+
+            if(packFile != null)
+                layouts.add(LevelLayout.parse(name, lines));
+        }
+
+        pool.shutdown();
+
+        if(packFile != null)
+            LevelPack.write(layouts, packFile);
+
+        System.out.println("Generated " + (count - failed) + " levels on " + threads + " threads in " + (System.nanoTime() - start) / 1000000 + " ms"
+                + (outDirectory != null ? ", written to " + outDirectory : "") + (packFile != null ? ", packed into " + packFile : ""));
+    }
+}
@@ -0,0 +1,269 @@
+package main;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+
+//the layout of a level as read from its text file, without any sprites or screen positions, so that it can be used
+//by the game as well as by tools that run without a GamePanel (solver, validator, etc.)
+public class LevelLayout {
+    public static final char EMPTY = ' ';       //cell the player can't stand on (this includes the start position)
+    public static final char END = '&';         //lock/end tile
+    public static final char START = '!';       //start position of the player
+    public static final char SWAP = '@';        //tile that swaps two characters, followed by the two characters in the text file
+    public static final char SWAP_LN = '#';     //tile that swaps letters to numbers and numbers to letters
+
+    private String name;                //name of the level (file name without extension)
+    private String goal;                //the string the player is trying to achieve
+    private int levelWidth;             //width of level in action tiles
+    private int levelHeight;            //height of level in action tiles
+    private int columns;                //number of columns in the cell grid (same as the level width)
+    private int rows;                   //number of rows in the cell grid (lock row, level rows and start row)
+    private char[] cells;               //tile characters of each cell in row-major order
+    private char[] swapValues;          //the two characters of each swap tile, stored at cell index * 2 and cell index * 2 + 1
+    private int startColumn;            //column of the player's start position
+    private int startRow;               //row of the player's start position
+    private int endColumn;              //column of the lock/end tile
+    private int endRow;                 //row of the lock/end tile
+    private String startString;         //the string the player starts the level with
+
+    //creates an empty layout, the cells are filled in by parse
+    LevelLayout(String name, String goal, int levelWidth, int levelHeight) {
+        this.name = name;
+        this.goal = goal;
+        this.levelWidth = levelWidth;
+        this.levelHeight = levelHeight;
+
+        columns = Math.max(levelWidth, 0);
+        rows = Math.max(levelHeight + 2, 0);
+        cells = new char[columns * rows];
+        swapValues = new char[columns * rows * 2];
+        Arrays.fill(cells, EMPTY);
+
+        startColumn = -1;
+        startRow = -1;
+        endColumn = -1;
+        endRow = -1;
+        startString = "";
+    }
+
+    //creates a layout from cells that were already worked out (used when reading a compiled level pack)
+    LevelLayout(String name, String goal, int levelWidth, int levelHeight, char[] cells, char[] swapValues,
+                int startColumn, int startRow, int endColumn, int endRow, String startString) {
+        this.name = name;
+        this.goal = goal;
+        this.levelWidth = levelWidth;
+        this.levelHeight = levelHeight;
+
+        columns = Math.max(levelWidth, 0);
+        rows = Math.max(levelHeight + 2, 0);
+        this.cells = cells;
+        this.swapValues = swapValues;
+
+        this.startColumn = startColumn;
+        this.startRow = startRow;
+        this.endColumn = endColumn;
+        this.endRow = endRow;
+        this.startString = startString;
+    }
+
+    //reads the level layout from a level text file
+    public static LevelLayout load(String path) throws FileNotFoundException {
+        return parse(levelName(path), readLines(path));
+    }
+
+    //reads the lines of a level text file
+    static List<String> readLines(String path) throws FileNotFoundException {
+        List<String> lines = new ArrayList<String>();
+        Scanner fileReader = new Scanner(new File(path));
+
+        while(fileReader.hasNextLine())
+            lines.add(fileReader.nextLine());
+
+        fileReader.close();
+        return lines;
+    }
+
+    //the name of a level is its file name without the extension
+    static String levelName(String path) {
+        String name = new File(path).getName();
+        if(name.endsWith(".txt"))
+            name = name.substring(0, name.length() - 4);
+
+        return name;
+    }
+
+    //reads the width and height from the second line of a level file, the two numbers separated by a single space.
+    //Returns null if the line doesn't have two parts, and throws NumberFormatException if they aren't numbers.
+    //LevelValidator checks the line with this too, so the two read it the same way
+    static int[] parseDimensions(String line) {
+        String[] dimensions = line.split(" ");
+        if(dimensions.length != 2)
+            return null;
+
+        return new int[] {Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1])};
+    }
+
+    //builds the layout from the lines of a level text file. The first line is the goal, the second the width and height
+    //of the level, then one line per row starting with the lock row and ending with the start row, optionally followed
+    //by the player's starting string
+    public static LevelLayout parse(String name, List<String> lines) {
+        String goal = "";
+        int levelWidth = 0;
+        int levelHeight = 0;
+
+        if(lines.size() > 0)
+            goal = lines.get(0).toUpperCase();
+
+        if(lines.size() > 1) {
+            int[] dimensions = parseDimensions(lines.get(1));
+            if(dimensions != null) {
+                levelWidth = dimensions[0];     //assign the first number as the level's width
+                levelHeight = dimensions[1];    //assign the second number as the level's height
+            }
+            else {
+                System.out.println("Level file has incorrect number of dimensions for level");      //throws error for incorrect number of dimensions
+            }
+        }
+
+        LevelLayout layout = new LevelLayout(name, goal, levelWidth, levelHeight);
+        boolean hasStartString = false;     //triggered once the start position was found and there is another line after it
+
+        for(int lineIndex = 2; lineIndex < lines.size(); lineIndex++) {
+            String line = lines.get(lineIndex);
+            int row = lineIndex - 2;
+            int offsetCount = 0;        //used to determine the amount of offset on the index when there is character Swap tile
+
+            for(int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+
+                //the lock/end tile and start position are positioned without the swap tile offset
+                if(c == END) {
+                    layout.setCell(i, row, END);
+                    layout.endColumn = i;
+                    layout.endRow = row;
+                }
+                else if(c == START) {
+                    layout.startColumn = i;
+                    layout.startRow = row;
+
+                    //check for another line of text (this is for levels that have a starting string for the player)
+                    if(lineIndex < lines.size() - 1)
+                        hasStartString = true;
+                    else
+                        layout.startString = "";
+                }
+                //every other character after the start position sets the player's starting string to the whole line
+                else if(hasStartString) {
+                    layout.startString = line;
+                }
+                else if(c == SWAP) {
+                    int column = i - offsetCount;
+                    layout.setCell(column, row, SWAP);
+
+                    if(layout.inBounds(column, row)) {
+                        layout.swapValues[(row * layout.columns + column) * 2] = line.charAt(i + 1);
+                        layout.swapValues[(row * layout.columns + column) * 2 + 1] = line.charAt(i + 2);
+                    }
+
+                    offsetCount = offsetCount + 2;
+                    i = i+2;    //the next two characters are the swap values
+                }
+                else if(c != ' ') {
+                    layout.setCell(i - offsetCount, row, c);
+                }
+            }
+        }
+
+        return layout;
+    }
+
+    //sets the tile character of a cell, cells outside of the grid are ignored
+    private void setCell(int column, int row, char value) {
+        if(inBounds(column, row))
+            cells[row * columns + column] = value;
+    }
+
+    //returns true if the cell is inside the grid
+    public boolean inBounds(int column, int row) {
+        return column >= 0 && column < columns && row >= 0 && row < rows;
+    }
+
+    //returns the tile character of a cell, or EMPTY if the cell is outside of the grid
+    public char getCell(int column, int row) {
+        if(!inBounds(column, row))
+            return EMPTY;
+
+        return cells[row * columns + column];
+    }
+
+    //returns the first swap character of a swap tile cell
+    public char getSwapValue1(int column, int row) {
+        return swapValues[(row * columns + column) * 2];
+    }
+
+    //returns the second swap character of a swap tile cell
+    public char getSwapValue2(int column, int row) {
+        return swapValues[(row * columns + column) * 2 + 1];
+    }
+
+    //returns the value of a tile character the same way Tile.getValue does (0 is the 10 tile)
+    public static String tileValue(char c) {
+        if(c == '0')
+            return "10";
+        else
+            return "" + c;
+    }
+
+    //returns true if the character is one of the operator tiles
+    public static boolean isOperator(char c) {
+        return c == '+' || c == '-' || c == '*' || c == '/' || c == '%';
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getGoal() {
+        return goal;
+    }
+
+    public int getLevelWidth() {
+        return levelWidth;
+    }
+
+    public int getLevelHeight() {
+        return levelHeight;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getStartColumn() {
+        return startColumn;
+    }
+
+    public int getStartRow() {
+        return startRow;
+    }
+
+    public int getEndColumn() {
+        return endColumn;
+    }
+
+    public int getEndRow() {
+        return endRow;
+    }
+
+    public String getStartString() {
+        return startString;
+    }
+}
@@ -0,0 +1,315 @@
+package main;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+//a compiled set of levels in one binary file, read through a memory mapped buffer. Opening a pack only reads its
+//header, each level is decoded straight from the mapped file when it's asked for.
+//
+//Layout of the file (all numbers big endian):
+//  header:  int magic ("NMLP"), int version, int level count, then the level text files the pack was made from: long hash
+//           of their names and contents (0 if it wasn't made from files, like the packs LevelGenerator writes), int number
+//           of files and long newest last modified time
+//  offsets: one int per level, the position of the level's record in the file
+//  record:  name, goal, int width, int height, int start column, int start row, int end column, int end row,
+//           start string, then one byte per cell (row-major) and two bytes per cell for the swap values.
+//           Strings are stored as a short byte length followed by UTF-8 bytes
+public class LevelPack {
+    public static final String DEFAULT_PATH = "Assets/Levels/levels.pack";     //where the game looks for the compiled levels
+
+    static final int MAGIC = 0x4E4D4C50;        //"NMLP"
+    static final int VERSION = 3;
+    private static final int HEADER_SIZE = 32;
+
+    private ByteBuffer buffer;                  //the mapped pack file
+    private int levelCount;                     //number of levels in the pack
+    private long sourceHash;                    //hash of the level text files the pack was made from, 0 if unknown
+    private int sourceFiles;                    //number of level text files the pack was made from
+    private long sourceModified;                //newest last modified time of those files, in milliseconds
+    private HashMap<String, Integer> nameIndex; //level index by name, only built the first time a level is looked up by name
+
+    private LevelPack(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        if(buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+            throw new IOException("Not a level pack");
+        if(buffer.getInt(4) != VERSION)
+            throw new IOException("Unsupported level pack version " + buffer.getInt(4));
+
+        levelCount = buffer.getInt(8);
+        sourceHash = buffer.getLong(12);
+        sourceFiles = buffer.getInt(20);
+        sourceModified = buffer.getLong(24);
+        if(levelCount < 0 || HEADER_SIZE + (long) levelCount * 4 > buffer.limit())
+            throw new IOException("Level pack offsets table is out of bounds");
+    }
+
+    //maps the level pack file into memory, the levels themselves are only read when they're asked for
+    public static LevelPack open(String path) throws IOException {
+        FileChannel channel = FileChannel.open(new File(path).toPath(), StandardOpenOption.READ);
+
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new LevelPack(buffer);
+        } finally {
+            channel.close();        //the mapping stays valid after the channel is closed
+        }
+    }
+
+    //number of levels in the pack
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    //hash of the level text files the pack was made from (see hashFiles), 0 if it wasn't made from files
+    public long getSourceHash() {
+        return sourceHash;
+    }
+
+    //returns true if the pack was made from these level files as they are now, or wasn't made from files at all, or there
+    //are no level files (a game shipped with only the pack). Only the number of files and their last modified times are
+    //checked, which doesn't read them; the files are only hashed when one was changed after the pack was made, which is
+    //also the case right after a checkout, and the pack is still used if their contents are the same
+    public boolean isUpToDate(List<File> files) throws IOException {
+        if(sourceHash == 0 || files.isEmpty())
+            return true;
+        if(files.size() != sourceFiles)
+            return false;
+        if(newestModified(files) <= sourceModified)
+            return true;
+
+        return sourceHash == hashFiles(files);
+    }
+
+    //the newest last modified time of the files, in milliseconds
+    static long newestModified(List<File> files) {
+        long newest = 0;
+
+        for(File file : files)
+            newest = Math.max(newest, file.lastModified());
+
+        return newest;
+    }
+
+    //hash of the names and contents of the level files, in the order given. Carriage returns are skipped, so a checkout
+    //that changes the line endings still matches
+    public static long hashFiles(List<File> files) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);       //every JVM has SHA-256
+        }
+
+        for(File file : files) {
+            digest.update(file.getName().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            for(byte b : Files.readAllBytes(file.toPath())) {
+                if(b != '\r')
+                    digest.update(b);
+            }
+            digest.update((byte) 0);
+        }
+
+        long hash = ByteBuffer.wrap(digest.digest()).getLong();
+        return hash != 0 ? hash : 1;        //0 means no source files
+    }
+
+    //decodes the level at the given index of the pack
+    public LevelLayout getLayout(int index) {
+        if(index < 0 || index >= levelCount)
+            throw new IndexOutOfBoundsException("Level " + index + " is not in the pack (" + levelCount + " levels)");
+
+        ByteBuffer record = buffer.duplicate();     //own position, so levels can be decoded from several threads at once
+        record.position(buffer.getInt(HEADER_SIZE + index * 4));
+
+        String name = readString(record);
+        String goal = readString(record);
+        int levelWidth = record.getInt();
+        int levelHeight = record.getInt();
+        int startColumn = record.getInt();
+        int startRow = record.getInt();
+        int endColumn = record.getInt();
+        int endRow = record.getInt();
+        String startString = readString(record);
+
+        int cellCount = Math.max(levelWidth, 0) * Math.max(levelHeight + 2, 0);
+        char[] cells = new char[cellCount];
+        char[] swapValues = new char[cellCount * 2];
+
+        for(int i = 0; i < cells.length; i++)
+            cells[i] = (char) (record.get() & 0xFF);
+        for(int i = 0; i < swapValues.length; i++)
+            swapValues[i] = (char) (record.get() & 0xFF);
+
+        return new LevelLayout(name, goal, levelWidth, levelHeight, cells, swapValues, startColumn, startRow, endColumn, endRow, startString);
+    }
+
+    //decodes the level with the given name, or returns null if the pack doesn't have it
+    public LevelLayout getLayout(String name) {
+        Integer index = getNameIndex().get(name);
+
+        if(index == null)
+            return null;
+
+        return getLayout(index);
+    }
+
+    //returns true if the pack has a level with the given name, without decoding it
+    public boolean hasLevel(String name) {
+        return getNameIndex().containsKey(name);
+    }
+
+    //builds the name lookup the first time it's needed, only the names of the records are read
+    private synchronized HashMap<String, Integer> getNameIndex() {
+        if(nameIndex == null) {
+            nameIndex = new HashMap<String, Integer>();
+            ByteBuffer record = buffer.duplicate();
+
+            for(int i = 0; i < levelCount; i++) {
+                record.position(buffer.getInt(HEADER_SIZE + i * 4));
+                nameIndex.put(readString(record), i);
+            }
+        }
+
+        return nameIndex;
+    }
+
+    private static String readString(ByteBuffer record) {
+        byte[] bytes = new byte[record.getShort() & 0xFFFF];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    //writes the layouts into a level pack file that wasn't made from level files
+    public static void write(List<LevelLayout> layouts, String path) throws IOException {
+        write(layouts, path, new ArrayList<File>());
+    }
+
+    //writes the layouts into a level pack file, with the hash, number and newest last modified time of the level files
+    //they were read from
+    public static void write(List<LevelLayout> layouts, String path, List<File> sources) throws IOException {
+        List<byte[]> records = new ArrayList<byte[]>();
+
+        for(LevelLayout layout : layouts)
+            records.add(encode(layout));
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(records.size());
+            out.writeLong(sources.isEmpty() ? 0 : hashFiles(sources));
+            out.writeInt(sources.size());
+            out.writeLong(newestModified(sources));
+
+            int offset = HEADER_SIZE + records.size() * 4;
+            for(byte[] record : records) {
+                out.writeInt(offset);
+                offset += record.length;
+            }
+
+            for(byte[] record : records)
+                out.write(record);
+        } finally {
+            out.close();
+        }
+    }
+
+    //encodes one level into its record
+    private static byte[] encode(LevelLayout layout) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream record = new DataOutputStream(bytes);
+
+        writeString(record, layout.getName());
+        writeString(record, layout.getGoal());
+        record.writeInt(layout.getLevelWidth());
+        record.writeInt(layout.getLevelHeight());
+        record.writeInt(layout.getStartColumn());
+        record.writeInt(layout.getStartRow());
+        record.writeInt(layout.getEndColumn());
+        record.writeInt(layout.getEndRow());
+        writeString(record, layout.getStartString());
+
+        for(int row = 0; row < layout.getRows(); row++)
+            for(int column = 0; column < layout.getColumns(); column++)
+                record.writeByte(toByte(layout, layout.getCell(column, row)));
+
+        for(int row = 0; row < layout.getRows(); row++) {
+            for(int column = 0; column < layout.getColumns(); column++) {
+                record.writeByte(toByte(layout, layout.getSwapValue1(column, row)));
+                record.writeByte(toByte(layout, layout.getSwapValue2(column, row)));
+            }
+        }
+
+        record.close();
+        return bytes.toByteArray();
+    }
+
+    //cells are stored as single bytes, the level files only use latin characters
+    private static int toByte(LevelLayout layout, char c) throws IOException {
+        if(c > 0xFF)
+            throw new IOException(layout.getName() + " has a tile character that can't be stored in a level pack: " + c);
+
+        return c;
+    }
+
+    private static void writeString(DataOutputStream record, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        if(bytes.length > 0xFFFF)
+            throw new IOException("String is too long for a level pack: " + value.length() + " characters");
+
+        record.writeShort(bytes.length);
+        record.write(bytes);
+    }
+
+    //compiles level text files into a level pack. Options: --out=<pack file> (default Assets/Levels/levels.pack),
+    //followed by level files or directories of level files (default every level in Assets/Levels)
+    public static void main(String[] args) {
+        String output = DEFAULT_PATH;
+        List<File> files = new ArrayList<File>();
+
+        for(String arg : args) {
+            if(arg.startsWith("--out="))
+                output = arg.substring("--out=".length());
+            else
+                LevelSolver.addLevelFiles(new File(arg), files);
+        }
+
+        if(files.isEmpty())
+            LevelSolver.addLevelFiles(new File("Assets/Levels"), files);
+
+        try {
+            List<LevelLayout> layouts = new ArrayList<LevelLayout>();
+            for(File file : files)
+                layouts.add(LevelLayout.load(file.getPath()));
+
+            write(layouts, output, files);
+            System.out.println("Wrote " + layouts.size() + " levels to " + output + " (" + new File(output).length() + " bytes)");
+        } catch (FileNotFoundException e) {
+            System.out.println("Specified file could not be found.");
+            e.printStackTrace();
+        } catch (IOException e) {
+            System.out.println("Level pack could not be written.");
+            e.printStackTrace();
+        }
+    }
+}
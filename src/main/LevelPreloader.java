@@ -0,0 +1,121 @@
+package main;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+//builds the next levels on a background thread while the current level is played, so that moving on to the next level
+//doesn't have to read the level and create its tiles and images on the game thread
+public class LevelPreloader {
+    private GamePanel gp;                               //game panel object, creates the levels
+    private int depth;                                  //how many levels after the current one are preloaded
+    private long budgetBytes;                           //most image memory the preloaded levels after the next one may use
+    private ExecutorService executor;                   //the background thread the levels are built on
+    private LinkedHashMap<String, Future<Level>> preloads;     //levels that are being built or are ready, by level name
+
+    public LevelPreloader(GamePanel gp, int depth, long budgetBytes) {
+        this.gp = gp;
+        this.depth = depth;
+        this.budgetBytes = budgetBytes;
+        preloads = new LinkedHashMap<String, Future<Level>>();
+
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "level-preloader");
+            thread.setDaemon(true);     //don't keep the game running once the window is closed
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    //starts building the levels after the given level index, up to the preload depth. The next level is always preloaded,
+    //the ones after it only while the preloaded levels stay within the memory budget. A level that isn't built yet is
+    //counted as the size of the current level. Preloads of any other levels are cancelled
+    public synchronized void preloadAfter(int levelIndex) {
+        LinkedHashMap<String, Future<Level>> wanted = new LinkedHashMap<String, Future<Level>>();
+        long estimate = gp.level != null ? gp.level.getImageBytes() : 0;   //image memory expected for a level that's still being built
+        long bytes = 0;
+
+        for(int i = 1; i <= depth && levelIndex + i <= gp.numLevels; i++) {
+            int index = levelIndex + i;
+            String levelName = "Level" + index;
+            Future<Level> preload = preloads.remove(levelName);
+
+            if(i > 1 && bytes >= budgetBytes) {
+                if(preload != null)
+                    preload.cancel(false);
+                continue;
+            }
+
+            if(preload == null)
+                preload = executor.submit(() -> gp.createLevel(levelName, index));
+
+            wanted.put(levelName, preload);
+            bytes += getImageBytes(preload, estimate);
+        }
+
+        cancelAll();        //whatever is left isn't needed anymore
+        preloads = wanted;
+    }
+
+    //returns the preloaded level, waiting for it if it's still being built, or null if the level wasn't preloaded
+    //(or failed to build), in which case the caller builds it itself
+    public Level take(String levelName) {
+        Future<Level> preload;
+        synchronized(this) {
+            preload = preloads.remove(levelName);
+        }
+
+        if(preload == null)
+            return null;
+
+        try {
+            return preload.get();       //the level is fully built by the time get returns
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | CancellationException e) {
+            System.out.println("Level " + levelName + " could not be preloaded: " + (e.getCause() != null ? e.getCause() : e));
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    //cancels every preload that hasn't started yet, and drops the ones that are running or done
+    public synchronized void cancelAll() {
+        Iterator<Future<Level>> iterator = preloads.values().iterator();
+
+        while(iterator.hasNext()) {
+            iterator.next().cancel(false);      //a level that is being built is left to finish, it only takes a moment
+            iterator.remove();
+        }
+    }
+
+    //cancels all preloads and stops the background thread
+    public void shutdown() {
+        cancelAll();
+        executor.shutdownNow();
+    }
+
+    //number of levels that are being preloaded or are ready
+    public synchronized int getPreloadCount() {
+        return preloads.size();
+    }
+
+    //image memory used by a preloaded level, or the estimate if it isn't built yet
+    private long getImageBytes(Future<Level> preload, long estimate) {
+        if(!preload.isDone())
+            return estimate;
+        if(preload.isCancelled())
+            return 0;
+
+        try {
+            return preload.get().getImageBytes();
+        } catch (InterruptedException | ExecutionException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,476 @@
+package main;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+
+//searches a level for the shortest sequence of moves that reaches the end tile with the goal string, using the same rules
+//as the Player when it lands on a tile. Runs without a GamePanel, so it can be used to check levels outside of the game.
+//A solver keeps its own rules engine, so each thread should use its own solver
+public class LevelSolver {
+    //the search strategies the solver can use
+    enum Strategy {
+        BFS,
+        IDDFS,
+        ASTAR
+    }
+
+    //the outcome of a search
+    enum Status {
+        SOLVED,
+        UNSOLVABLE,
+        BUDGET_EXCEEDED
+    }
+
+    private static final int[] COLUMN_STEP = {0, 0, -1, 1};        //column change for moving up, down, left and right
+    private static final int[] ROW_STEP = {-1, 1, 0, 0};           //row change for moving up, down, left and right
+    private static final char[] MOVE_NAMES = {'U', 'D', 'L', 'R'}; //names of the moves used in the solution string
+
+    private Strategy strategy;          //search strategy used by solve
+    private long nodeBudget;            //maximum number of states expanded before the search gives up
+    private RulesEngine rules;          //applies the puzzle rules to the player's string
+    private RulesCache rulesCache;      //remembers the results of the rules, off unless set with setRulesCache
+
+    private LevelLayout layout;         //level currently being solved
+    private int[] endCells;             //cell indices of the end tiles of the level
+    private long nodesExpanded;         //number of states expanded in the current search
+    private boolean cutoff;             //set by the depth limited search when it didn't explore a state because of the depth limit
+
+    public LevelSolver(Strategy strategy, long nodeBudget) {
+        this.strategy = strategy;
+        this.nodeBudget = nodeBudget;
+
+        rules = new RulesEngine(Player.MAX_STRING_LENGTH);
+        rulesCache = RulesCache.disabled();
+    }
+
+    //makes the solver look the results of the rules up in a cache. A single search already visits each state once, so this
+    //only pays off when the same level is searched again, like the generator checking the goal it picked
+    public void setRulesCache(RulesCache rulesCache) {
+        this.rulesCache = rulesCache;
+    }
+
+    //searches the level for its shortest solution
+    public Result solve(LevelLayout layout) {
+        this.layout = layout;
+        nodesExpanded = 0;
+        findEndCells();
+
+        if(layout.getStartColumn() < 0)
+            return new Result(Status.UNSOLVABLE, null, 0);
+
+        State start = new State(layout.getStartColumn(), layout.getStartRow(), layout.getStartString(), "", false, null, ' ', 0);
+
+        if(strategy == Strategy.IDDFS)
+            return solveIterativeDeepening(start);
+        else if(strategy == Strategy.ASTAR)
+            return solveAStar(start);
+        else
+            return solveBreadthFirst(start);
+    }
+
+    //explores the level breadth first up to maxMoves moves (or until the node budget runs out) and returns every string the
+    //player could open the lock with, mapped to the fewest moves needed to finish the level with that string as the goal.
+    //The goal of the layout is ignored, this is used by the level generator to pick reachable goals
+    public HashMap<String, Integer> findGoals(LevelLayout layout, int maxMoves) {
+        this.layout = layout;
+        nodesExpanded = 0;
+        findEndCells();
+
+        HashMap<String, Integer> goals = new HashMap<String, Integer>();
+        if(layout.getStartColumn() < 0)
+            return goals;
+
+        ArrayDeque<State> queue = new ArrayDeque<State>();
+        HashSet<State> visited = new HashSet<State>();
+        State start = new State(layout.getStartColumn(), layout.getStartRow(), layout.getStartString(), "", false, null, ' ', 0);
+
+        queue.add(start);
+        visited.add(start);
+
+        while(!queue.isEmpty() && nodesExpanded < nodeBudget) {
+            State state = queue.poll();
+            nodesExpanded++;
+
+            boolean atStart = state.column == layout.getStartColumn() && state.row == layout.getStartRow();
+
+            for(int direction = 0; direction < 4; direction++) {
+                int column = state.column + COLUMN_STEP[direction];
+                int row = state.row + ROW_STEP[direction];
+
+                //states are expanded in order of moves taken, so the first time a string can finish is the shortest way to
+                if(layout.getCell(column, row) == LevelLayout.END) {
+                    if(!atStart && !goals.containsKey(state.currentString))
+                        goals.put(state.currentString, state.depth + 1);
+                    continue;
+                }
+
+                if(state.depth + 1 >= maxMoves)
+                    continue;       //a state reached with the last move can't finish within maxMoves anymore
+
+                State next = move(state, direction);
+                if(next != null && visited.add(next))
+                    queue.add(next);
+            }
+        }
+
+        return goals;
+    }
+
+    //returns the number of states expanded by the last search
+    public long getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    //breadth first search, expands states in order of the number of moves taken
+    private Result solveBreadthFirst(State start) {
+        ArrayDeque<State> queue = new ArrayDeque<State>();
+        HashSet<State> visited = new HashSet<State>();
+
+        queue.add(start);
+        visited.add(start);
+
+        while(!queue.isEmpty()) {
+            State state = queue.poll();
+
+            if(nodesExpanded >= nodeBudget)
+                return new Result(Status.BUDGET_EXCEEDED, null, nodesExpanded);
+            nodesExpanded++;
+
+            for(int direction = 0; direction < 4; direction++) {
+                if(canFinish(state, direction))
+                    return solved(state, direction);
+
+                State next = move(state, direction);
+                if(next != null && visited.add(next))
+                    queue.add(next);
+            }
+        }
+
+        return new Result(Status.UNSOLVABLE, null, nodesExpanded);
+    }
+
+    //A* search using the distance to the closest end tile as the heuristic (each move covers one cell, so it never overestimates)
+    private Result solveAStar(State start) {
+        PriorityQueue<State> open = new PriorityQueue<State>((a, b) -> Integer.compare(a.depth + a.estimate, b.depth + b.estimate));
+        HashMap<State, Integer> bestDepth = new HashMap<State, Integer>();
+
+        start.estimate = distanceToEnd(start.column, start.row);
+        open.add(start);
+        bestDepth.put(start, 0);
+
+        while(!open.isEmpty()) {
+            State state = open.poll();
+
+            //skip states that were reached with fewer moves after being added to the queue
+            if(bestDepth.get(state) < state.depth)
+                continue;
+
+            if(nodesExpanded >= nodeBudget)
+                return new Result(Status.BUDGET_EXCEEDED, null, nodesExpanded);
+            nodesExpanded++;
+
+            for(int direction = 0; direction < 4; direction++) {
+                if(canFinish(state, direction))
+                    return solved(state, direction);
+
+                State next = move(state, direction);
+                if(next != null) {
+                    Integer previous = bestDepth.get(next);
+
+                    if(previous == null || previous > next.depth) {
+                        next.estimate = distanceToEnd(next.column, next.row);
+                        bestDepth.put(next, next.depth);
+                        open.add(next);
+                    }
+                }
+            }
+        }
+
+        return new Result(Status.UNSOLVABLE, null, nodesExpanded);
+    }
+
+    //iterative deepening depth first search, repeats a depth limited search with a growing limit until a solution is found
+    private Result solveIterativeDeepening(State start) {
+        for(int limit = 0; ; limit++) {
+            HashMap<State, Integer> seen = new HashMap<State, Integer>();    //most moves left that each state was explored with in this iteration
+            cutoff = false;
+            seen.put(start, limit);
+
+            Result result = depthLimitedSearch(start, limit, seen);
+            if(result != null)
+                return result;
+
+            //if nothing was left unexplored because of the limit, a bigger limit won't find anything new
+            if(!cutoff)
+                return new Result(Status.UNSOLVABLE, null, nodesExpanded);
+        }
+    }
+
+    //depth limited search used by iterative deepening, returns null if nothing was found within the limit
+    private Result depthLimitedSearch(State state, int movesLeft, HashMap<State, Integer> seen) {
+        if(nodesExpanded >= nodeBudget)
+            return new Result(Status.BUDGET_EXCEEDED, null, nodesExpanded);
+        nodesExpanded++;
+
+        for(int direction = 0; direction < 4; direction++) {
+            if(canFinish(state, direction))
+                return solved(state, direction);
+
+            State next = move(state, direction);
+            if(next == null)
+                continue;
+
+            if(movesLeft == 0) {
+                cutoff = true;
+                continue;
+            }
+
+            Integer previous = seen.get(next);
+            if(previous == null || previous < movesLeft - 1) {
+                seen.put(next, movesLeft - 1);
+
+                Result result = depthLimitedSearch(next, movesLeft - 1, seen);
+                if(result != null)
+                    return result;
+            }
+        }
+
+        return null;
+    }
+
+    //returns true if moving in the direction lands on an unlocked end tile. The lock is only opened by landing on a tile,
+    //so it is always active at the start position, and afterwards it's open when the player's string equals the goal
+    private boolean canFinish(State state, int direction) {
+        int column = state.column + COLUMN_STEP[direction];
+        int row = state.row + ROW_STEP[direction];
+
+        if(layout.getCell(column, row) != LevelLayout.END)
+            return false;
+
+        boolean atStart = state.column == layout.getStartColumn() && state.row == layout.getStartRow();
+        return !atStart && state.currentString.equals(layout.getGoal());
+    }
+
+    //returns the state after moving in the direction and carrying out the action of the tile landed on (same as
+    //Player.onTileAction), or null if there is no tile to move onto
+    private State move(State state, int direction) {
+        int column = state.column + COLUMN_STEP[direction];
+        int row = state.row + ROW_STEP[direction];
+        char c = layout.getCell(column, row);
+
+        if(c == LevelLayout.EMPTY || c == LevelLayout.END)
+            return null;
+
+        String currentString = state.currentString;
+        String currOperator = state.currOperator;
+        boolean playerMoved = state.playerMoved;
+
+        try {
+            if(c == LevelLayout.SWAP_LN) {
+                currentString = rulesCache.applyLetterNumberSwap(rules, currentString);
+                currOperator = "";
+            }
+            else if(c == LevelLayout.SWAP) {
+                String swapVal1 = LevelLayout.tileValue(layout.getSwapValue1(column, row));
+                String swapVal2 = LevelLayout.tileValue(layout.getSwapValue2(column, row));
+                currentString = rulesCache.applySwap(rules, currentString, swapVal1, swapVal2);
+                currOperator = "";
+            }
+            else if(LevelLayout.isOperator(c)) {
+                currOperator = "" + c;
+            }
+            else {
+                String tileValue = LevelLayout.tileValue(c);
+
+                if(!playerMoved && currentString.equals("") || currOperator.equals("+") && currentString.equals("")) {
+                    currentString = tileValue;
+                    playerMoved = true;
+                }
+                else if(!currOperator.equals("")) {
+                    currentString = rulesCache.applyOperation(rules, currentString, currOperator, tileValue);
+                    currOperator = "";
+                }
+            }
+        } catch (RuntimeException e) {
+            return null;        //the rules can't handle this string (the game would fail here too), so treat the move as a dead end
+        }
+
+        return new State(column, row, currentString, currOperator, playerMoved, state, MOVE_NAMES[direction], state.depth + 1);
+    }
+
+    //builds the result for a solution that ends by moving from the state in the direction
+    private Result solved(State state, int direction) {
+        StringBuilder moves = new StringBuilder();
+        moves.append(MOVE_NAMES[direction]);
+
+        for(State s = state; s.parent != null; s = s.parent)
+            moves.append(s.move);
+
+        return new Result(Status.SOLVED, moves.reverse().toString(), nodesExpanded);
+    }
+
+    //finds the cells of all end tiles in the level
+    private void findEndCells() {
+        int[] found = new int[layout.getColumns() * layout.getRows()];
+        int count = 0;
+
+        for(int row = 0; row < layout.getRows(); row++) {
+            for(int column = 0; column < layout.getColumns(); column++) {
+                if(layout.getCell(column, row) == LevelLayout.END)
+                    found[count++] = row * layout.getColumns() + column;
+            }
+        }
+
+        endCells = Arrays.copyOf(found, count);
+    }
+
+    //returns the number of moves needed to reach the closest end tile if every cell had a tile
+    private int distanceToEnd(int column, int row) {
+        int best = 0;
+
+        for(int i = 0; i < endCells.length; i++) {
+            int endColumn = endCells[i] % layout.getColumns();
+            int endRow = endCells[i] / layout.getColumns();
+            int distance = Math.abs(endColumn - column) + Math.abs(endRow - row);
+
+            if(i == 0 || distance < best)
+                best = distance;
+        }
+
+        return best;
+    }
+
+    //a position in the search: the player's cell, string, operator and whether the player's string was initiated.
+    //Two states are equal when those match, no matter how they were reached
+    static class State {
+        final int column;
+        final int row;
+        final String currentString;
+        final String currOperator;
+        final boolean playerMoved;
+
+        final State parent;         //state this one was reached from
+        final char move;            //move taken from the parent state
+        final int depth;            //number of moves taken from the start
+        int estimate;               //heuristic estimate of the moves left, used by A*
+
+        private final int hash;
+
+        State(int column, int row, String currentString, String currOperator, boolean playerMoved, State parent, char move, int depth) {
+            this.column = column;
+            this.row = row;
+            this.currentString = currentString;
+            this.currOperator = currOperator;
+            this.playerMoved = playerMoved;
+            this.parent = parent;
+            this.move = move;
+            this.depth = depth;
+
+            int h = column * 31 + row;
+            h = h * 31 + currentString.hashCode();
+            h = h * 31 + currOperator.hashCode();
+            hash = h * 2 + (playerMoved ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o)
+                return true;
+            if(!(o instanceof State))
+                return false;
+
+            State other = (State) o;
+            return column == other.column && row == other.row && playerMoved == other.playerMoved
+                    && currentString.equals(other.currentString) && currOperator.equals(other.currOperator);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    //the result of solving a level
+    public static class Result {
+        private Status status;          //whether a solution was found
+        private String moves;           //the moves of the solution (U, D, L, R), null if there is no solution
+        private long nodesExpanded;     //number of states expanded by the search
+
+        Result(Status status, String moves, long nodesExpanded) {
+            this.status = status;
+            this.moves = moves;
+            this.nodesExpanded = nodesExpanded;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getMoves() {
+            return moves;
+        }
+
+        public long getNodesExpanded() {
+            return nodesExpanded;
+        }
+    }
+
+    //solves the level files (or directories of level files) passed in, or every level in Assets/Levels if none are passed.
+    //Options: --strategy=bfs|iddfs|astar and --budget=<max states expanded per level>
+    public static void main(String[] args) {
+        Strategy strategy = Strategy.BFS;
+        long budget = 1000000;
+        List<File> files = new ArrayList<File>();
+
+        for(String arg : args) {
+            if(arg.startsWith("--strategy="))
+                strategy = Strategy.valueOf(arg.substring("--strategy=".length()).toUpperCase());
+            else if(arg.startsWith("--budget="))
+                budget = Long.parseLong(arg.substring("--budget=".length()));
+            else
+                addLevelFiles(new File(arg), files);
+        }
+
+        if(files.isEmpty())
+            addLevelFiles(new File("Assets/Levels"), files);
+
+        LevelSolver solver = new LevelSolver(strategy, budget);
+
+        for(File file : files) {
+            try {
+                long start = System.nanoTime();
+                Result result = solver.solve(LevelLayout.load(file.getPath()));
+                long micros = (System.nanoTime() - start) / 1000;
+
+                System.out.println(file.getName() + " " + result.getStatus()
+                        + (result.getMoves() != null ? " " + result.getMoves().length() + " moves " + result.getMoves() : "")
+                        + " (" + result.getNodesExpanded() + " states, " + micros + "us)");
+            } catch (FileNotFoundException e) {
+                System.out.println(file.getName() + " could not be found.");
+            }
+        }
+    }
+
+    //adds the file, or the level text files in the directory sorted by name length then name (so Level10 comes after Level9)
+    static void addLevelFiles(File file, List<File> files) {
+        if(file.isDirectory()) {
+            File[] levelFiles = file.listFiles((dir, name) -> name.endsWith(".txt"));
+
+            if(levelFiles != null) {
+                Arrays.sort(levelFiles, (a, b) -> a.getName().length() != b.getName().length()
+                        ? Integer.compare(a.getName().length(), b.getName().length()) : a.getName().compareTo(b.getName()));
+                files.addAll(Arrays.asList(levelFiles));
+            }
+        }
+        else {
+            files.add(file);
+        }
+    }
+}
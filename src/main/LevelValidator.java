@@ -0,0 +1,331 @@
+package main;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+//checks level files without starting the game: the structure of the file (dimensions, rows, start and lock positions,
+//swap tiles, characters that have a tile image) and whether the level can be solved. Levels are checked in parallel on a
+//ForkJoin pool and the report is written as JSON or CSV in the order the files were given, as soon as each level is done
+public class LevelValidator {
+    //the result of checking one level file
+    public static class Report {
+        private String file;                //path of the level file
+        private List<String> errors;        //structural problems with the level, the level isn't solved if there are any
+        private LevelSolver.Result result;  //result of the solvability search, null if the level wasn't searched
+        private long micros;                //time taken to check the level
+
+        Report(String file, List<String> errors, LevelSolver.Result result, long micros) {
+            this.file = file;
+            this.errors = errors;
+            this.result = result;
+            this.micros = micros;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+
+        public LevelSolver.Result getResult() {
+            return result;
+        }
+
+        public long getMicros() {
+            return micros;
+        }
+
+        //a level is valid if it has no structural problems and the search didn't prove it can't be solved
+        //(a level where the search ran out of budget is still valid, it just couldn't be confirmed)
+        public boolean isValid() {
+            return errors.isEmpty() && (result == null || result.getStatus() != LevelSolver.Status.UNSOLVABLE);
+        }
+    }
+
+    static final String CSV_HEADER = "file,valid,status,moves,states,micros,errors";    //columns of the CSV report
+
+    //whether each tile image exists, by image name, shared by all threads so each file is only checked once
+    private static final ConcurrentHashMap<String, Boolean> tileImages = new ConcurrentHashMap<String, Boolean>();
+
+    private LevelSolver.Strategy strategy;      //search strategy used to check that levels can be solved
+    private long nodeBudget;                    //most states the search may expand per level, 0 to skip the search
+    private ThreadLocal<LevelSolver> solvers;   //a solver per thread, as a solver isn't thread safe
+
+    public LevelValidator(LevelSolver.Strategy strategy, long nodeBudget) {
+        this.strategy = strategy;
+        this.nodeBudget = nodeBudget;
+
+        solvers = ThreadLocal.withInitial(() -> new LevelSolver(this.strategy, this.nodeBudget));
+    }
+
+    //checks a level file, is safe to call from several threads at once
+    public Report validate(File file) {
+        long start = System.nanoTime();
+        List<String> errors;
+        LevelSolver.Result result = null;
+
+        try {
+            List<String> lines = LevelLayout.readLines(file.getPath());
+            errors = checkStructure(lines);
+
+            if(errors.isEmpty() && nodeBudget > 0)
+                result = solvers.get().solve(LevelLayout.parse(LevelLayout.levelName(file.getPath()), lines));
+        } catch (FileNotFoundException e) {
+            errors = new ArrayList<String>();
+            errors.add("file could not be found");
+        }
+
+        return new Report(file.getPath(), errors, result, (System.nanoTime() - start) / 1000);
+    }
+
+    //checks the lines of a level file and returns the problems found, in the format read by LevelLayout.parse: the goal,
+    //the width and height, the lock row, one row per level row, the start row and optionally the player's starting string
+    static List<String> checkStructure(List<String> lines) {
+        List<String> errors = new ArrayList<String>();
+
+        if(lines.size() < 2) {
+            errors.add("the file needs a goal line and a dimensions line");
+            return errors;
+        }
+
+        String goal = lines.get(0).toUpperCase();
+        if(goal.trim().isEmpty())
+            errors.add("the goal is empty");
+        for(int i = 0; i < goal.length(); i++) {
+            if(goal.charAt(i) != ' ' && !hasTileImage(goal.charAt(i)))
+                errors.add("the goal has a character without a tile image: '" + goal.charAt(i) + "'");
+        }
+
+        //read exactly the way the game reads it, so a line the game can't read is never reported as valid
+        int[] dimensions;
+        try {
+            dimensions = LevelLayout.parseDimensions(lines.get(1));
+        } catch (NumberFormatException e) {
+            dimensions = null;
+        }
+
+        if(dimensions == null) {
+            errors.add("line 2 should be the width and height of the level separated by a space, found \"" + lines.get(1) + "\"");
+            return errors;
+        }
+
+        int levelWidth = dimensions[0];
+        int levelHeight = dimensions[1];
+
+        if(levelWidth <= 0 || levelHeight <= 0) {
+            errors.add("the width and height of the level must be above 0, found " + levelWidth + "x" + levelHeight);
+            return errors;
+        }
+
+        //the lock row, the level rows and the start row, followed by an optional line for the starting string
+        int rows = levelHeight + 2;
+        int gridLines = lines.size() - 2;
+        if(gridLines < rows || gridLines > rows + 1)
+            errors.add("a " + levelWidth + "x" + levelHeight + " level needs " + rows + " rows (plus an optional starting string), found " + gridLines + " lines");
+
+        int starts = 0;
+        int locks = 0;
+
+        for(int row = 0; row < Math.min(rows, gridLines); row++) {
+            String line = lines.get(row + 2);
+            int lineNumber = row + 3;
+            int width = 0;          //width of the row in tiles, with each swap tile and its two values counted as one tile
+            int usedWidth = 0;      //width up to the last tile of the row, trailing spaces don't count
+
+            for(int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+
+                if(c == LevelLayout.START) {
+                    starts++;
+                    if(row != rows - 1)
+                        errors.add("line " + lineNumber + ": the start position must be in the last row");
+                }
+                else if(c == LevelLayout.END) {
+                    locks++;
+                    if(row != 0)
+                        errors.add("line " + lineNumber + ": the lock must be in the first row");
+                }
+                else if(c == LevelLayout.SWAP) {
+                    if(i + 2 >= line.length() || line.charAt(i + 1) == ' ' || line.charAt(i + 2) == ' ')
+                        errors.add("line " + lineNumber + ": the swap tile in column " + (i + 1) + " needs two characters after it");
+                    else if(!hasTileImage(line.charAt(i + 1)) || !hasTileImage(line.charAt(i + 2)))
+                        errors.add("line " + lineNumber + ": the swap tile in column " + (i + 1) + " swaps a character without a tile image");
+
+                    i = i + 2;
+                }
+                else if(c != ' ' && c != LevelLayout.SWAP_LN && !LevelLayout.isOperator(c) && !hasTileImage(c)) {
+                    errors.add("line " + lineNumber + ": there is no tile for the character '" + c + "'");
+                }
+
+                width++;
+                if(c != ' ')
+                    usedWidth = width;
+            }
+
+            if(usedWidth > levelWidth)
+                errors.add("line " + lineNumber + ": the row is " + usedWidth + " tiles wide but the level is " + levelWidth + " wide");
+        }
+
+        if(starts != 1)
+            errors.add("the level needs exactly one start position '!', found " + starts);
+        if(locks != 1)
+            errors.add("the level needs exactly one lock '&', found " + locks);
+
+        return errors;
+    }
+
+    //returns true if a number or letter tile (or goal character) has an image, using the same file names as Tile
+    private static boolean hasTileImage(char c) {
+        String file = c == '0' ? "10" : "" + c;
+        if(file.equals("."))
+            file = "Decimal";
+        if(file.equals("-"))
+            file = "sub";
+
+        return tileImages.computeIfAbsent(file, name -> new File("Assets/Animations/Tiles/" + name + ".png").isFile());
+    }
+
+    //writes a report as one JSON object
+    static String toJson(Report report) {
+        StringBuilder json = new StringBuilder();
+        LevelSolver.Result result = report.getResult();
+
+        json.append("{\"file\":").append(quoteJson(report.getFile()));
+        json.append(",\"valid\":").append(report.isValid());
+        json.append(",\"status\":").append(result != null ? quoteJson(result.getStatus().toString()) : "null");
+        json.append(",\"moves\":").append(result != null && result.getMoves() != null ? quoteJson(result.getMoves()) : "null");
+        json.append(",\"states\":").append(result != null ? result.getNodesExpanded() : 0);
+        json.append(",\"micros\":").append(report.getMicros());
+        json.append(",\"errors\":[");
+        for(int i = 0; i < report.getErrors().size(); i++) {
+            if(i > 0)
+                json.append(',');
+            json.append(quoteJson(report.getErrors().get(i)));
+        }
+        json.append("]}");
+
+        return json.toString();
+    }
+
+    //writes a report as one CSV row, in the columns of CSV_HEADER
+    static String toCsv(Report report) {
+        LevelSolver.Result result = report.getResult();
+
+        return quoteCsv(report.getFile()) + "," + report.isValid()
+                + "," + (result != null ? result.getStatus() : "")
+                + "," + (result != null && result.getMoves() != null ? result.getMoves() : "")
+                + "," + (result != null ? result.getNodesExpanded() : 0)
+                + "," + report.getMicros()
+                + "," + quoteCsv(String.join("; ", report.getErrors()));
+    }
+
+    private static String quoteJson(String value) {
+        StringBuilder json = new StringBuilder("\"");
+
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if(c == '"' || c == '\\')
+                json.append('\\').append(c);
+            else if(c < 0x20)
+                json.append(String.format("\\u%04x", (int) c));
+            else
+                json.append(c);
+        }
+
+        return json.append('"').toString();
+    }
+
+    private static String quoteCsv(String value) {
+        if(value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0)
+            return value;
+
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    //validates the level files (or directories of level files) passed in, or every level in Assets/Levels if none are passed.
+    //Options: --format=json|csv, --out=<report file> (default is the console), --threads=<number of threads>,
+    //--strategy=bfs|iddfs|astar and --budget=<max states expanded per level, 0 skips the solvability search>.
+    //Exits with status 1 if any level is invalid
+    public static void main(String[] args) throws IOException {
+        boolean csv = false;
+        String output = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        LevelSolver.Strategy strategy = LevelSolver.Strategy.BFS;
+        long budget = 1000000;
+        List<File> files = new ArrayList<File>();
+
+        for(String arg : args) {
+            if(arg.startsWith("--format="))
+                csv = arg.substring("--format=".length()).equalsIgnoreCase("csv");
+            else if(arg.startsWith("--out="))
+                output = arg.substring("--out=".length());
+            else if(arg.startsWith("--threads="))
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            else if(arg.startsWith("--strategy="))
+                strategy = LevelSolver.Strategy.valueOf(arg.substring("--strategy=".length()).toUpperCase());
+            else if(arg.startsWith("--budget="))
+                budget = Long.parseLong(arg.substring("--budget=".length()));
+            else
+                LevelSolver.addLevelFiles(new File(arg), files);
+        }
+
+        if(files.isEmpty())
+            LevelSolver.addLevelFiles(new File("Assets/Levels"), files);
+
+        long start = System.nanoTime();
+        LevelValidator validator = new LevelValidator(strategy, budget);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<ForkJoinTask<Report>> tasks = new ArrayList<ForkJoinTask<Report>>(files.size());
+
+        for(File file : files)
+            tasks.add(pool.submit(() -> validator.validate(file)));
+
+        PrintWriter out = new PrintWriter(new BufferedWriter(output != null ? new FileWriter(output) : new OutputStreamWriter(System.out)));
+        int invalid = 0;
+
+        out.println(csv ? CSV_HEADER : "[");
+
+        //write the reports in the order of the files, each one as soon as it's done
+        for(int i = 0; i < tasks.size(); i++) {
+            Report report = tasks.get(i).join();
+
+            if(!report.isValid())
+                invalid++;
+
+            if(csv)
+                out.println(toCsv(report));
+            else
+                out.println(toJson(report) + (i < tasks.size() - 1 ? "," : ""));
+
+            if(i % 100 == 0)
+                out.flush();
+        }
+
+        if(!csv)
+            out.println("]");
+        out.flush();
+        if(output != null)
+            out.close();
+
+        pool.shutdown();
+
+        System.err.println("Validated " + files.size() + " levels on " + threads + " threads in " + (System.nanoTime() - start) / 1000000
+                + " ms, " + invalid + " invalid");
+
+        if(invalid > 0)
+            System.exit(1);
+    }
+}
@@ -4,18 +4,23 @@ import javax.swing.JFrame;
 
 public class Main {
     public static void main(String[] args) {
+        Startup.mark("main");
+        Startup.warmUp();       //decodes the sprite sheets on other threads while the window is made
+
         JFrame window = new JFrame();       //create a window for the game to be displayed in
         window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);  //allows game to close properly when player closes window
         window.setResizable(false);     //disallows window resizing to keep proper aspect ratio
         window.setTitle("Numlet");      //Display name of game at top of window
 
         GamePanel gamePanel = new GamePanel();      //instantiate the game window
-        window.add(gamePanel);
+        window.add(gamePanel.getView());            //the game panel, or the canvas the active renderer draws on
 
         window.pack();
 
         window.setLocationRelativeTo(null);     //window is displayed at center of screen
         window.setVisible(true);
+        Startup.mark("window shown");
+        gamePanel.getView().requestFocus();         //so the keys go to the player
 
         gamePanel.startGameThread();
     }
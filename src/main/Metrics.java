@@ -0,0 +1,361 @@
+package main;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+//measures where the time of a frame goes: each phase of the game (updates, painting, drawing the level, tile actions,
+//level loads) is timed with System.nanoTime into a histogram, along with the memory allocated per frame. The
+//measurements are shown by the F3 overlay, exported through JMX (numlet:type=Metrics) and as JFR events (numlet.Frame,
+//numlet.LevelLoad) when a flight recording is running, the event classes are only loaded once a recording was started.
+//-Dnumlet.metrics=false turns the measuring off
+public final class Metrics {
+    //the parts of the game that are timed
+    public enum Phase {
+        FRAME("frame"),                 //the updates of one frame interval of the game loop plus painting the frame, if anything changed
+        UPDATE("update"),               //one game update
+        PAINT("paint"),                 //painting a frame
+        LEVEL_DRAW("level draw"),       //drawing the level, part of painting
+        TILE_ACTION("tile action"),     //applying the tile the player landed on, not counting a level load it starts
+        LEVEL_LOAD("level load"),       //loading a level (taking a preloaded one, or building it)
+        INPUT("input to frame");        //from a key that did something to the end of the next frame that was drawn
+
+        private String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        //finds a phase by its label or its name
+        static Phase find(String name) {
+            for(Phase phase : values()) {
+                if(phase.label.equalsIgnoreCase(name) || phase.name().equalsIgnoreCase(name))
+                    return phase;
+            }
+
+            throw new IllegalArgumentException("no phase called " + name);
+        }
+    }
+
+    //a frame, with the time it took and the memory allocated for it
+    @Name("numlet.Frame")
+    @Label("Frame")
+    @Category("Numlet")
+    static class FrameEvent extends Event {
+        @Label("Update Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long updateTime;
+
+        @Label("Paint Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long paintTime;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+    }
+
+    //a level being loaded
+    @Name("numlet.LevelLoad")
+    @Label("Level Load")
+    @Category("Numlet")
+    static class LevelLoadEvent extends Event {
+        @Label("Level")
+        String levelName;
+
+        @Label("Preloaded")
+        boolean preloaded;
+
+        @Label("Load Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long loadTime;
+    }
+
+    static final boolean enabled = !"false".equals(System.getProperty("numlet.metrics"));
+
+    private static final Histogram[] histograms = new Histogram[Phase.values().length];    //times of each phase, in nanoseconds
+    private static final Histogram allocatedPerFrame = new Histogram();     //bytes allocated by the game and paint threads per frame
+    private static final AtomicLong updateNanosSinceFrame = new AtomicLong();   //time spent in updates since the last frame interval ended
+    private static final AtomicLong frameUpdateNanos = new AtomicLong();        //time spent in the updates of the frames waiting to be painted
+    private static final AtomicLong inputNanos = new AtomicLong();      //time of the first key pressed since the last frame, 0 if there was none
+
+    //allocation counters, only available on JVMs that have the com.sun.management extension of ThreadMXBean
+    private static final com.sun.management.ThreadMXBean allocationBean = allocationBean();
+    private static long lastPaintThreadBytes = -1;      //bytes the paint thread had allocated at the end of the last frame
+    private static long lastGameThreadBytes = -1;       //bytes the game thread had allocated at the end of the last frame
+
+    private static boolean registered;      //true once the MBean is registered
+
+    static {
+        for(int i = 0; i < histograms.length; i++)
+            histograms[i] = new Histogram();
+    }
+
+    private Metrics() {
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if(bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported())
+            return (com.sun.management.ThreadMXBean) bean;
+
+        return null;
+    }
+
+    //returns the time a phase starts at, to pass to stop
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    //records the time since start for the phase
+    public static void stop(Phase phase, long start) {
+        if(enabled)
+            histograms[phase.ordinal()].record(System.nanoTime() - start);
+    }
+
+    //records the time of an update, which is also counted towards the frame of the interval it ran in
+    public static void stopUpdate(long start) {
+        if(!enabled)
+            return;
+
+        long nanos = System.nanoTime() - start;
+        histograms[Phase.UPDATE.ordinal()].record(nanos);
+        updateNanosSinceFrame.addAndGet(nanos);
+    }
+
+    //ends a frame interval of the game loop. The updates run since the last one are the frame's time together with the
+    //paint that was just requested, if one was; otherwise (nothing changed on screen) they are recorded as the frame on
+    //their own, so a paint after a still screen isn't charged with the updates of every frame that wasn't painted
+    public static void endFrameInterval(boolean painting) {
+        if(!enabled)
+            return;
+
+        long updateNanos = updateNanosSinceFrame.getAndSet(0);
+        if(painting)
+            frameUpdateNanos.addAndGet(updateNanos);       //added, Swing can merge repaints that were requested one after the other
+        else
+            histograms[Phase.FRAME.ordinal()].record(updateNanos);
+    }
+
+    //notes the System.nanoTime a key that did something was pressed at, the time until the next frame is drawn is recorded
+    //as the input phase
+    public static void keyPressed(long time) {
+        if(enabled)
+            inputNanos.compareAndSet(0, time);
+    }
+
+    //records a level load and sends it as a JFR event
+    public static void levelLoaded(String levelName, boolean preloaded, long start) {
+        if(!enabled)
+            return;
+
+        long nanos = System.nanoTime() - start;
+        histograms[Phase.LEVEL_LOAD.ordinal()].record(nanos);
+
+        if(!FlightRecorder.isInitialized())
+            return;         //no recording was ever started, loading the event classes would only slow the game down
+
+        LevelLoadEvent event = new LevelLoadEvent();
+        if(event.isEnabled()) {
+            event.levelName = levelName;
+            event.preloaded = preloaded;
+            event.loadTime = nanos;
+            event.commit();
+        }
+    }
+
+    //records the time of the paint that started at start and of the frame as a whole (the updates of the frame interval
+    //that requested the paint, see endFrameInterval, plus the paint), and the memory the paint thread and the game thread
+    //allocated since the last frame. Called on the thread that painted the frame, which is the game thread itself with
+    //the active renderer
+    public static void endFrame(long start, Thread gameThread) {
+        if(!enabled)
+            return;
+
+        long end = System.nanoTime();
+        long paintNanos = end - start;
+        long updateNanos = frameUpdateNanos.getAndSet(0);
+        histograms[Phase.PAINT.ordinal()].record(paintNanos);
+        histograms[Phase.FRAME.ordinal()].record(updateNanos + paintNanos);
+
+        long pressed = inputNanos.getAndSet(0);
+        if(pressed != 0)
+            histograms[Phase.INPUT.ordinal()].record(end - pressed);
+
+        if(gameThread == Thread.currentThread())
+            gameThread = null;      //the game thread's allocations are already counted as the paint thread's
+
+        long allocated = -1;
+        if(allocationBean != null) {
+            long paintThreadBytes = allocationBean.getCurrentThreadAllocatedBytes();
+            long gameThreadBytes = gameThread != null ? allocationBean.getThreadAllocatedBytes(gameThread.getId()) : 0;
+
+            //the first frame only sets the starting point
+            if(lastPaintThreadBytes >= 0) {
+                allocated = paintThreadBytes - lastPaintThreadBytes + Math.max(gameThreadBytes - lastGameThreadBytes, 0);
+                allocatedPerFrame.record(allocated);
+            }
+
+            lastPaintThreadBytes = paintThreadBytes;
+            lastGameThreadBytes = gameThreadBytes;
+        }
+
+        if(!FlightRecorder.isInitialized())
+            return;
+
+        FrameEvent event = new FrameEvent();
+        if(event.isEnabled()) {
+            event.updateTime = updateNanos;
+            event.paintTime = paintNanos;
+            event.allocated = Math.max(allocated, 0);
+            event.commit();
+        }
+    }
+
+    //the histogram of a phase's times in nanoseconds
+    public static Histogram getHistogram(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    //the histogram of the bytes allocated per frame, empty if the JVM can't count allocations
+    public static Histogram getAllocatedPerFrame() {
+        return allocatedPerFrame;
+    }
+
+    //a line describing a phase's times, for the overlay
+    public static String describe(Phase phase) {
+        Histogram histogram = histograms[phase.ordinal()];
+
+        return String.format("%-12s p50 %7.3f ms  p99 %7.3f ms  max %7.3f ms  (%d)", phase.getLabel(),
+                histogram.getValueAtPercentile(50) / 1000000.0, histogram.getValueAtPercentile(99) / 1000000.0,
+                histogram.getMax() / 1000000.0, histogram.getCount());
+    }
+
+    //a line describing the memory allocated per frame, for the overlay
+    public static String describeAllocation() {
+        if(allocationBean == null)
+            return "allocation per frame isn't measured on this JVM";
+
+        return String.format("%-12s p50 %7.1f KB  p99 %7.1f KB  max %7.1f KB", "alloc/frame",
+                allocatedPerFrame.getValueAtPercentile(50) / 1024.0, allocatedPerFrame.getValueAtPercentile(99) / 1024.0,
+                allocatedPerFrame.getMax() / 1024.0);
+    }
+
+    //clears all the measurements
+    public static void reset() {
+        for(Histogram histogram : histograms)
+            histogram.reset();
+
+        allocatedPerFrame.reset();
+    }
+
+    //registers the measurements as the numlet:type=Metrics MBean, once
+    public static synchronized void registerMBean() {
+        if(registered || !enabled)
+            return;
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new MBean(), new ObjectName("numlet:type=Metrics"));
+            registered = true;
+        } catch (JMException e) {
+            System.out.println("The metrics could not be registered with JMX.");
+            e.printStackTrace();
+        }
+    }
+
+    //registers the MBean and, if a flight recording is running, loads the JFR event classes ahead of time. The first use
+    //of each takes a few hundred milliseconds that would otherwise be spent on the game's first level load
+    public static void warmUp() {
+        if(!enabled)
+            return;
+
+        registerMBean();
+        if(FlightRecorder.isInitialized()) {
+            new FrameEvent().isEnabled();
+            new LevelLoadEvent().isEnabled();
+        }
+    }
+
+    private static class MBean implements MetricsMXBean {
+        @Override
+        public double getFrameTimeP50Millis() {
+            return getPercentileMillis("frame", 50);
+        }
+
+        @Override
+        public double getFrameTimeP99Millis() {
+            return getPercentileMillis("frame", 99);
+        }
+
+        @Override
+        public long getFrameCount() {
+            return getCount("frame");
+        }
+
+        @Override
+        public long getAllocatedBytesPerFrameP50() {
+            return allocatedPerFrame.getValueAtPercentile(50);
+        }
+
+        @Override
+        public long getAllocatedBytesPerFrameP99() {
+            return allocatedPerFrame.getValueAtPercentile(99);
+        }
+
+        @Override
+        public long getSpriteDecodes() {
+            return SpriteCache.getDecodes();
+        }
+
+        @Override
+        public long getSpriteScales() {
+            return SpriteCache.getScales();
+        }
+
+        @Override
+        public String[] getPhases() {
+            String[] labels = new String[Phase.values().length];
+            for(Phase phase : Phase.values())
+                labels[phase.ordinal()] = phase.getLabel();
+            return labels;
+        }
+
+        @Override
+        public double getPercentileMillis(String phase, double percentile) {
+            return histograms[Phase.find(phase).ordinal()].getValueAtPercentile(percentile) / 1000000.0;
+        }
+
+        @Override
+        public double getMaxMillis(String phase) {
+            return histograms[Phase.find(phase).ordinal()].getMax() / 1000000.0;
+        }
+
+        @Override
+        public long getCount(String phase) {
+            return histograms[Phase.find(phase).ordinal()].getCount();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package main;
+
+//the game's measurements as seen through JMX (jconsole, VisualVM or any JMX client), registered as numlet:type=Metrics.
+//Times are in milliseconds, phases are named as in Metrics.Phase ("frame", "update", "paint", ...)
+public interface MetricsMXBean {
+    double getFrameTimeP50Millis();
+
+    double getFrameTimeP99Millis();
+
+    long getFrameCount();
+
+    long getAllocatedBytesPerFrameP50();
+
+    long getAllocatedBytesPerFrameP99();
+
+    long getSpriteDecodes();
+
+    long getSpriteScales();
+
+    String[] getPhases();
+
+    //time that the given percentage of the phase's measurements are at or below
+    double getPercentileMillis(String phase, double percentile);
+
+    double getMaxMillis(String phase);
+
+    long getCount(String phase);
+
+    //clears all the measurements
+    void reset();
+}
@@ -0,0 +1,274 @@
+package main;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+//remembers the results of the puzzle rules, so that a string that lands on the same tile again (the player moving back and
+//forth, or a search visiting the same string from different paths) doesn't redo the calculation. The rules always give the
+//same string for the same inputs, so a result can be reused as is. The cache is split into segments that each keep their
+//most recently used results, so threads using different segments don't wait on each other, and it's safe to share one cache
+//between the game and the tools
+public class RulesCache {
+    private static final int SEGMENTS = 16;     //number of separately locked parts of the cache (segmentFor uses the top 4 bits of the hash)
+    private static final int MAX_VALUES = 256;  //most operator and tile values kept interned, the game only has a few dozen
+
+    private static final char OPERATION = 'O';      //key kinds, one per rule
+    private static final char LETTER_SWAP = 'L';
+    private static final char SWAP = 'S';
+
+    //cache shared by the game and the tools, the size can be set with -Dnumlet.rulesCacheSize (0 turns caching off)
+    private static final RulesCache shared = new RulesCache(Integer.getInteger("numlet.rulesCacheSize", 65536));
+    private static final RulesCache disabled = new RulesCache(0);     //cache that always applies the rules directly
+
+    private Segment[] segments;
+    private int capacity;                   //most results kept in the whole cache, split as evenly as it goes between the segments
+    private LongAdder hits = new LongAdder();           //number of lookups served from the cache
+    private LongAdder misses = new LongAdder();         //number of lookups that had to apply the rules
+    private LongAdder evictions = new LongAdder();      //number of results dropped to make room for new ones
+
+    //single copy of each operator and tile value used in the stored keys, emptied once it holds MAX_VALUES values
+    private ConcurrentHashMap<String, String> values = new ConcurrentHashMap<String, String>();
+
+    //each thread looks results up with its own reusable key, so a lookup doesn't create any objects
+    private ThreadLocal<Key> lookupKeys = ThreadLocal.withInitial(Key::new);
+
+    public RulesCache(int capacity) {
+        this.capacity = capacity;
+
+        segments = new Segment[SEGMENTS];
+        //the segments past the remainder get one result less, so the cache never holds more than capacity results (with a
+        //capacity below SEGMENTS some segments don't keep anything)
+        for(int i = 0; i < segments.length; i++)
+            segments[i] = new Segment(Math.max(capacity, 0) / SEGMENTS + (i < Math.max(capacity, 0) % SEGMENTS ? 1 : 0));
+    }
+
+    //returns the cache shared by the game and the tools
+    public static RulesCache shared() {
+        return shared;
+    }
+
+    //returns a cache that doesn't keep anything, for users where results rarely repeat and a lookup would cost more than it saves
+    public static RulesCache disabled() {
+        return disabled;
+    }
+
+    //same as RulesEngine.applyOperation, using the cached result if there is one
+    public String applyOperation(RulesEngine rules, String currentString, String currOperator, String tileValue) {
+        if(capacity <= 0)
+            return rules.applyOperation(currentString, currOperator, tileValue);
+
+        Key key = lookupKeys.get().set(OPERATION, rules.getMaxStringLength(), currentString, currOperator, tileValue);
+        String result = get(key);
+
+        if(result == null) {
+            result = rules.applyOperation(currentString, currOperator, tileValue);
+            put(key, result);
+        }
+
+        return result;
+    }
+
+    //same as RulesEngine.applyLetterNumberSwap, using the cached result if there is one
+    public String applyLetterNumberSwap(RulesEngine rules, String currentString) {
+        if(capacity <= 0)
+            return rules.applyLetterNumberSwap(currentString);
+
+        Key key = lookupKeys.get().set(LETTER_SWAP, rules.getMaxStringLength(), currentString, "", "");
+        String result = get(key);
+
+        if(result == null) {
+            result = rules.applyLetterNumberSwap(currentString);
+            put(key, result);
+        }
+
+        return result;
+    }
+
+    //same as RulesEngine.applySwap, using the cached result if there is one
+    public String applySwap(RulesEngine rules, String currentString, String swapVal1, String swapVal2) {
+        if(capacity <= 0)
+            return rules.applySwap(currentString, swapVal1, swapVal2);
+
+        Key key = lookupKeys.get().set(SWAP, rules.getMaxStringLength(), currentString, swapVal1, swapVal2);
+        String result = get(key);
+
+        if(result == null) {
+            result = rules.applySwap(currentString, swapVal1, swapVal2);
+            put(key, result);
+        }
+
+        return result;
+    }
+
+    private String get(Key key) {
+        Segment segment = segmentFor(key);
+        String result;
+
+        synchronized(segment) {
+            result = segment.get(key);
+        }
+
+        if(result != null)
+            hits.increment();
+        else
+            misses.increment();
+
+        return result;
+    }
+
+    //stores a result under a copy of the lookup key (the lookup key is reused by the next lookup). The operator and tile
+    //values only come from a handful of tiles, so they're interned to keep a single copy of each for all the keys
+    private void put(Key key, String result) {
+        Key stored = new Key().set(key.kind, key.maxStringLength, key.currentString, intern(key.value1), intern(key.value2));
+        Segment segment = segmentFor(stored);
+
+        synchronized(segment) {
+            segment.put(stored, result);
+        }
+    }
+
+    //returns the copy of the value kept by the cache (cheaper than String.intern, which goes through the JVM's string table).
+    //Values that only come up once (generated levels, tools) would pile up, so the copies are dropped once there are too
+    //many; the stored keys keep their own references, a value is just copied again the next time it's interned
+    private String intern(String value) {
+        if(values.size() >= MAX_VALUES)
+            values.clear();
+
+        String interned = values.putIfAbsent(value, value);
+        return interned != null ? interned : value;
+    }
+
+    //picks the segment from the top bits of the mixed hash, the maps inside the segments use the low bits
+    private Segment segmentFor(Key key) {
+        return segments[(key.hash * 0x9E3779B9) >>> 28];
+    }
+
+    //number of lookups served from the cache
+    public long getHits() {
+        return hits.sum();
+    }
+
+    //number of lookups that had to apply the rules
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    //number of results dropped to make room for new ones
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    //share of lookups served from the cache (0 to 1)
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    //number of results currently cached
+    public int size() {
+        int size = 0;
+
+        for(Segment segment : segments) {
+            synchronized(segment) {
+                size += segment.size();
+            }
+        }
+
+        return size;
+    }
+
+    //removes every cached result and resets the counters
+    public void clear() {
+        for(Segment segment : segments) {
+            synchronized(segment) {
+                segment.clear();
+            }
+        }
+
+        values.clear();
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    //one part of the cache, a map in least recently used order that drops the oldest result once it's full
+    private class Segment {
+        private LinkedHashMap<Key, String> results = new LinkedHashMap<Key, String>(16, 0.75f, true);
+        private int segmentCapacity;
+
+        Segment(int segmentCapacity) {
+            this.segmentCapacity = segmentCapacity;
+        }
+
+        String get(Key key) {
+            return results.get(key);
+        }
+
+        void put(Key key, String result) {
+            if(segmentCapacity == 0)
+                return;
+
+            results.put(key, result);
+
+            if(results.size() > segmentCapacity) {
+                Iterator<Key> eldest = results.keySet().iterator();     //access order, the least recently used comes first
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+
+        int size() {
+            return results.size();
+        }
+
+        void clear() {
+            results.clear();
+        }
+    }
+
+    //the rule and the inputs it was applied to. The max string length is part of the key as it changes the result
+    private static class Key {
+        char kind;
+        int maxStringLength;
+        String currentString;
+        String value1;
+        String value2;
+        int hash;
+
+        Key set(char kind, int maxStringLength, String currentString, String value1, String value2) {
+            this.kind = kind;
+            this.maxStringLength = maxStringLength;
+            this.currentString = currentString;
+            this.value1 = value1;
+            this.value2 = value2;
+
+            int h = kind * 31 + maxStringLength;
+            h = h * 31 + currentString.hashCode();
+            h = h * 31 + value1.hashCode();
+            hash = h * 31 + value2.hashCode();
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o)
+                return true;
+            if(!(o instanceof Key))
+                return false;
+
+            Key other = (Key) o;
+            return kind == other.kind && maxStringLength == other.maxStringLength && hash == other.hash
+                    && currentString.equals(other.currentString) && value1.equals(other.value1) && value2.equals(other.value2);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,566 @@
+package main;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+
+//the puzzle rules for changing the player's string when they land on a tile. The engine has no game state of its own, the
+//same inputs always give the same string, so it's used by the Player as well as by tools that run without the game.
+//An engine reuses its string builders and number formats between calls, so each thread should use its own engine
+public class RulesEngine {
+    private static final int MAX_FAST_DIGITS = 18;     //most digits the player string can have for the long calculation (10^18 still fits in a long)
+    private static final long[] POWERS_OF_TEN = new long[MAX_FAST_DIGITS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for(int i = 1; i < POWERS_OF_TEN.length; i++)
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    private int maxStringLength;                //indicates the maximum length the player string can be as they solve the puzzle
+
+    private StringBuilder operationString;      //reused to build the result of an operation or swap
+    private StringBuilder manipulationString;   //reused to build the result of a string manipulation
+    private StringBuilder numberString;         //reused to format the result of a calculation
+    private DecimalFormat positiveFormat;       //formats positive results with the maximum number of decimal numbers
+    private DecimalFormat negativeFormat;       //formats negative results, which get one more character for the negative symbol
+
+    public RulesEngine(int maxStringLength) {
+        this.maxStringLength = maxStringLength;
+
+        operationString = new StringBuilder();
+        manipulationString = new StringBuilder();
+        numberString = new StringBuilder();
+
+        //set the maximum number of decimal numbers
+        positiveFormat = new DecimalFormat("#");
+        positiveFormat.setMaximumFractionDigits(maxStringLength-1);
+        negativeFormat = new DecimalFormat("#");
+        negativeFormat.setMaximumFractionDigits(maxStringLength);
+    }
+
+    //get the maximum length of the player string
+    public int getMaxStringLength() {
+        return maxStringLength;
+    }
+
+    //applies the value of a number or letter tile to the player's string using the current operator
+    public String applyOperation(String currentString, String currOperator, String tileValue) {
+        int digitCounter = 0;       //initialize a counter to keep track of how many digits in a row for currentString, to be used for calculations
+        boolean isString = false;      //initialize a bool that determines if there is a letter in the string or not and therefore string manipulation needs to take place
+
+        StringBuilder tempString = operationString;     //keeps track of the player's string as it's being manipulated
+        tempString.setLength(0);
+
+        //cycle through each character in the player's string
+        for(int j=0; j<currentString.length(); j++) {
+            //check if the character is a number and increment the digit counter
+            if(Character.isDigit(currentString.charAt(j)))
+                digitCounter++;
+            //checks if the character is a decimal
+            else if (currentString.charAt(j) == '.') {
+                //if the character before and after the decimal is a number, increment the digit counter
+                if(j>0 && Character.isDigit(currentString.charAt(j-1)) && j < currentString.length() - 1 && !Character.isDigit(currentString.charAt(j+1)))
+                    digitCounter++;
+                //if the character before and after the decimal is a number, increment the digit counter
+                else if(j>0 && Character.isDigit(currentString.charAt(j-1)) && j < currentString.length() - 1 && Character.isDigit(currentString.charAt(j+1)))
+                    digitCounter++;
+                //if the character before the decimal is a number and the last character is the decimal, increment digit counter
+                else if(j>0 && Character.isDigit(currentString.charAt(j-1)) && j == currentString.length() - 1)
+                    digitCounter++;
+                //if the first character of the string is a decimal and the next character is a number, increment digit counter
+                else if(j == 0 && j < currentString.length() - 1 && Character.isDigit(currentString.charAt(j + 1)))
+                    digitCounter++;
+                //otherwise add the character to the temporary string
+                else
+                    tempString.append(currentString.charAt(j));
+            }
+            //if letter is detected in the string at this point, apply the calculation of any string of digits before it
+            else if(Character.isLetter(currentString.charAt(j)) || currentString.charAt(j) == ' ') {
+                //call method to apply calculation to digits up to this detected letter
+                tempString.append(applyCalculation(currentString, currOperator, j, digitCounter, tileValue));
+                tempString.append(currentString.charAt(j)); //add the current character to the end of the resulting string
+                digitCounter = 0;   //reset digit counter
+                isString = true;    //if a letter is detected in the string, then string calculation will occur
+            }
+            else if(currentString.charAt(j) == '-') {       //if current character is negative, apply calculation as we reached the end of a number potentially
+                tempString.append(applyCalculation(currentString, currOperator, j, digitCounter, tileValue));
+
+                //if character after negative value is a number, then we begin incrementing the digit counter
+                if(j < currentString.length() - 1 && Character.isDigit(currentString.charAt(j+1)))
+                  digitCounter = 1;
+                //otherwise add the character to the end of the temp string
+                else {
+                  tempString.append(currentString.charAt(j));
+                  digitCounter = 0;
+                }
+            }
+        }
+
+        //apply final digit calculation if last string of characters were digits
+        tempString.append(applyCalculation(currentString, currOperator, currentString.length(), digitCounter, tileValue));
+
+        //apply the string calculation, which will apply to all letters in the string
+        return applyStringManipulation(tempString.toString(), currOperator, isString, tileValue);
+    }
+
+    //applies the calculation on the substring of digits based on the current operator
+    String applyCalculation(String currentString, String currOperator, int index, int digitCounter, String currValue) {
+        if(digitCounter > 0 && isInteger(currValue)) {
+            //most results fit in a long, so try the primitive calculation first and only fall back to BigDecimal
+            //when it can't give the exact same answer (non-terminating division, too many digits or overflow)
+            String result = fastCalculation(currentString, currOperator, currValue);
+            if(result == null)
+                result = bigDecimalCalculation(currentString, currOperator, currValue);
+
+            return result;
+        }
+        else {
+            //if the digit counter was large rthan 0, return the substring of the current player string from the index minus the digit counter value up to the digit counter value
+            if(digitCounter>0)
+                return currentString.substring(index - digitCounter, digitCounter);
+            else
+                return "";
+        }
+    }
+
+    //applies the calculation to the whole player string with BigDecimal
+    String bigDecimalCalculation(String currentString, String currOperator, String currValue) {
+        //BigDecimal is used for precision reasons
+        BigDecimal tileValue = new BigDecimal(currValue);
+        BigDecimal tempNumber = new BigDecimal(currentString);
+
+        //if current value is add, then apply addition with current tile's value
+        if(currOperator.equals("+"))
+            tempNumber = tempNumber.add(tileValue);
+        //if current value is subtraction, then apply subtraction with current tile's value
+        else if(currOperator.equals("-"))
+            tempNumber = tempNumber.subtract(tileValue);
+        //if current value is multiply, then apply multiplication with current tile's value
+        else if(currOperator.equals("*"))
+            tempNumber = tempNumber.multiply(tileValue);
+        //if current value is divide, then apply division with current tile's value
+        else if(currOperator.equals("/"))
+            tempNumber = tempNumber.divide(tileValue, maxStringLength + 3, RoundingMode.HALF_UP); //round using HALF_UP to make a decimal of 5 round up
+        else if(currOperator.equals("%"))
+            tempNumber = tempNumber.remainder(tileValue);
+
+        int accNegative = 0;        //set a variable that will accommodate string size when the number is negative
+        DecimalFormat df = positiveFormat;
+
+        //set accNegative to 1 if the resulting value is negative
+        if(tempNumber.compareTo(BigDecimal.ZERO) < 0) {
+            accNegative = 1;
+            df = negativeFormat;
+        }
+
+        String formatted = df.format(tempNumber);
+
+        //if the resulting number is between -1 and 1
+        if(tempNumber.abs().compareTo(BigDecimal.ONE)<0) {
+            //if the resulting number is 0 or -0, return 0
+            if(formatted.equals("0") || formatted.equals("-0"))
+                return "0";
+            //if the resulting number is less than zero, add the zero between the negative and decimal
+            else if (tempNumber.compareTo(BigDecimal.ZERO)<0)
+                return "-0" + formatted.substring(1);
+            //otherwise add the 0 before the decimal
+            else
+                return "0" + formatted;
+        }
+        else if(formatted.length() > maxStringLength+accNegative) {
+            String wholeNumber = tempNumber.toBigInteger().toString();
+
+            //if the resulting number is greater than the max string length, return the original string as resulting string is too big
+            if(wholeNumber.length() > maxStringLength+accNegative)
+                return currentString;
+            //if the resulting string is equal to the max string length, then return the resulting string
+            else if(wholeNumber.length() == maxStringLength + accNegative)
+                return wholeNumber;
+            else {
+                //if the resulting number is a whole number, return the resulting number as is
+                if(tempNumber.remainder(BigDecimal.ONE).compareTo(BigDecimal.ZERO) == 0)
+                    return wholeNumber;
+                //otherwise return the resulting number up to the maximum string length
+                else
+                    return formatted.substring(0, maxStringLength + 1 + accNegative);
+            }
+        } else {
+            //if no numbers after the decimal, return as a whole number
+            if(tempNumber.remainder(BigDecimal.ONE).compareTo(BigDecimal.ZERO) == 0)
+                return tempNumber.toBigInteger().toString();
+            else
+                //return resulting number
+                return formatted;
+        }
+    }
+
+    //applies the calculation to the whole player string using a long and a number of decimal places instead of BigDecimal,
+    //giving the exact same string as bigDecimalCalculation. Returns null if the calculation has to be done with BigDecimal
+    String fastCalculation(String currentString, String currOperator, String currValue) {
+        int length = currentString.length();
+        int i = 0;
+        boolean negative = false;
+        long unscaled = 0;          //the number without its decimal point
+        int scale = 0;              //number of digits after the decimal point
+        int digits = 0;
+        boolean decimal = false;
+
+        //read the player's string as a plain decimal number, anything else (exponents, plus signs, too many digits) uses BigDecimal
+        if(length > 0 && currentString.charAt(0) == '-') {
+            negative = true;
+            i = 1;
+        }
+        for(; i < length; i++) {
+            char c = currentString.charAt(i);
+
+            if(c >= '0' && c <= '9') {
+                if(++digits > MAX_FAST_DIGITS)
+                    return null;
+
+                unscaled = unscaled * 10 + (c - '0');
+                if(decimal)
+                    scale++;
+            }
+            else if(c == '.' && !decimal)
+                decimal = true;
+            else
+                return null;
+        }
+        if(digits == 0)
+            return null;
+        if(negative)
+            unscaled = -unscaled;
+
+        long tileValue = parseTileValue(currValue);
+        if(tileValue == Long.MIN_VALUE)
+            return null;
+
+        long value;
+        try {
+            //if current value is add, then apply addition with current tile's value
+            if(currOperator.equals("+"))
+                value = Math.addExact(unscaled, Math.multiplyExact(tileValue, POWERS_OF_TEN[scale]));
+            //if current value is subtraction, then apply subtraction with current tile's value
+            else if(currOperator.equals("-"))
+                value = Math.subtractExact(unscaled, Math.multiplyExact(tileValue, POWERS_OF_TEN[scale]));
+            //if current value is multiply, then apply multiplication with current tile's value
+            else if(currOperator.equals("*"))
+                value = Math.multiplyExact(unscaled, tileValue);
+            //if current value is divide, only divisions with a result that ends within the rounding scale are done here
+            else if(currOperator.equals("/")) {
+                if(tileValue == 0)
+                    return null;
+
+                value = 0;
+                boolean exact = false;
+
+                //add decimal places until the division has no remainder
+                for(int places = 0; scale + places <= maxStringLength + 3; places++) {
+                    long dividend = Math.multiplyExact(unscaled, POWERS_OF_TEN[places]);
+
+                    if(dividend % tileValue == 0) {
+                        value = dividend / tileValue;
+                        scale += places;
+                        exact = true;
+                        break;
+                    }
+                }
+
+                if(!exact)
+                    return null;
+            }
+            else if(currOperator.equals("%")) {
+                if(tileValue == 0)
+                    return null;
+
+                value = unscaled % Math.multiplyExact(tileValue, POWERS_OF_TEN[scale]);
+            }
+            else
+                value = unscaled;
+        } catch (ArithmeticException e) {
+            return null;        //overflow
+        }
+
+        int accNegative = 0;        //set a variable that will accommodate string size when the number is negative
+        if(value < 0)
+            accNegative = 1;
+
+        long magnitude = Math.abs(value);
+        long one = POWERS_OF_TEN[scale];
+        String formatted = formatNumber(magnitude, scale, maxStringLength - 1 + accNegative, value < 0);
+
+        //if the resulting number is between -1 and 1
+        if(magnitude < one) {
+            //if the resulting number is 0 or -0, return 0
+            if(formatted.equals("0") || formatted.equals("-0"))
+                return "0";
+            //if the resulting number is less than zero, add the zero between the negative and decimal
+            else if(value < 0)
+                return "-0" + formatted.substring(1);
+            //otherwise add the 0 before the decimal
+            else
+                return "0" + formatted;
+        }
+        else if(formatted.length() > maxStringLength+accNegative) {
+            String wholeNumber = Long.toString(value / one);
+
+            //if the resulting number is greater than the max string length, return the original string as resulting string is too big
+            if(wholeNumber.length() > maxStringLength+accNegative)
+                return currentString;
+            //if the resulting string is equal to the max string length, then return the resulting string
+            else if(wholeNumber.length() == maxStringLength + accNegative)
+                return wholeNumber;
+            else {
+                //if the resulting number is a whole number, return the resulting number as is
+                if(value % one == 0)
+                    return wholeNumber;
+                //otherwise return the resulting number up to the maximum string length
+                else
+                    return formatted.substring(0, maxStringLength + 1 + accNegative);
+            }
+        } else {
+            //if no numbers after the decimal, return as a whole number
+            if(value % one == 0)
+                return Long.toString(value / one);
+            else
+                //return resulting number
+                return formatted;
+        }
+    }
+
+    //formats a number the same way as a DecimalFormat("#") with the given maximum number of decimal places (rounding half
+    //even, no trailing zeros after the decimal point and no 0 before it)
+    private String formatNumber(long magnitude, int scale, int maxFractionDigits, boolean negative) {
+        long rounded = magnitude;
+        int places = scale;
+
+        if(places > maxFractionDigits) {
+            long divisor = POWERS_OF_TEN[places - maxFractionDigits];
+            long remainder = rounded % divisor;
+            rounded = rounded / divisor;
+
+            if(remainder * 2 > divisor || remainder * 2 == divisor && (rounded & 1) == 1)
+                rounded++;
+            places = maxFractionDigits;
+        }
+
+        while(places > 0 && rounded % 10 == 0) {
+            rounded = rounded / 10;
+            places--;
+        }
+
+        long whole = rounded / POWERS_OF_TEN[places];
+        long fraction = rounded % POWERS_OF_TEN[places];
+
+        StringBuilder number = numberString;
+        number.setLength(0);
+
+        if(negative)
+            number.append('-');
+        if(whole != 0 || places == 0)
+            number.append(whole);
+        if(places > 0) {
+            number.append('.');
+
+            //pad the decimal places with leading zeros
+            for(long p = POWERS_OF_TEN[places - 1]; p > fraction && p > 1; p = p / 10)
+                number.append('0');
+            number.append(fraction);
+        }
+
+        return number.toString();
+    }
+
+    //reads a tile value as a long, or returns Long.MIN_VALUE if it isn't a plain whole number
+    private static long parseTileValue(String string) {
+        int length = string.length();
+        int i = 0;
+        boolean negative = false;
+
+        if(length > 0 && (string.charAt(0) == '-' || string.charAt(0) == '+')) {
+            negative = string.charAt(0) == '-';
+            i = 1;
+        }
+        if(i == length || length - i > 9)
+            return Long.MIN_VALUE;
+
+        long value = 0;
+        for(; i < length; i++) {
+            char c = string.charAt(i);
+            if(c < '0' || c > '9')
+                return Long.MIN_VALUE;
+
+            value = value * 10 + (c - '0');
+        }
+
+        return negative ? -value : value;
+    }
+
+    //apply the string manipulation on any letters in the player string
+    String applyStringManipulation(String currentString, String currOperator, boolean isString, String currValue) {
+        //if the player's string is a string that contains any letters and the value of the tile is a letter, proceed with string manipulation
+        if(isString && Character.isLetter(currValue.charAt(0))) {
+            StringBuilder tempString = manipulationString;     //stores the value of the resulting string as it gets created
+            tempString.setLength(0);
+
+            if (currOperator.equals("+")) {             //if the current operation is addition
+                //return the player string as is if it's already reached max length
+                if (currentString.length() >= maxStringLength)
+                    return currentString;
+                //otherwise add the tile value to the end of the string
+                else
+                    return currentString.concat(currValue);
+            } else if (currOperator.equals("-")) {      //if the current operation is subtraction
+                //get the index of the last instance of the tile's value in the string
+                int letterIndex = currentString.lastIndexOf(currValue.charAt(0));
+                if(currValue.length() != 1)
+                    letterIndex = -1;   //a single character can never match a longer value
+
+                //if letterIndex is greater than zero, then delete the character in the string at that index
+                if (letterIndex >= 0)
+                    tempString.append(currentString, 0, letterIndex).append(currentString, letterIndex + 1, currentString.length());
+                else    //if letterIndex is less than zero, then there was no instance of that letter in the string
+                    return currentString;
+            } else if (currOperator.equals("*")) {          //if the current operation is multiplication
+                //return the player string as is if it's already reached max length
+                if (currentString.length() >= maxStringLength)
+                    tempString.append(currentString);
+                else {
+                    boolean addMore = true; //set a boolean to keep track of whether or not we can keep adding more characters to the string as we iterate through it
+
+                    //loop through the string and if there is a space detected, add the current tile's value before the space (end of the "word")
+                    for (int i = 0; i < currentString.length(); i++) {
+                        if (currentString.charAt(i) == ' ' && addMore) {
+                            tempString.append(currValue);
+
+                            //length of currentString.substring(i, currentString.length() - i), the measure the game has always
+                            //used. Past the middle of the string that substring doesn't exist (it used to throw), so there the
+                            //characters still to be added, from the space to the end, are counted instead
+                            int restLength = 2 * i <= currentString.length() ? currentString.length() - 2 * i : currentString.length() - i;
+
+                            //if more letters can't be added due to reaching the length max already, addMore is set to false
+                            if (tempString.length() + restLength >= maxStringLength)
+                                addMore = false;
+
+                            //continue to add the rest of the characters we need to from the player's string
+                            tempString.append(currentString.charAt(i));
+                        } else      //if not a space or can't add more, just add the next character from the player's string
+                            tempString.append(currentString.charAt(i));
+                    }
+                }
+
+                //if the last character in currentString is not a space and we haven't reached the maximum string length yet, then add the current tile's value to the end of the string
+                if (currentString.charAt(currentString.length() - 1) != ' ' && tempString.length() < maxStringLength)
+                    tempString.append(currValue);
+            } else if (currOperator.equals("/")) {      //if the current operation is divide
+                //iterate through each character in the player's string and if that character matches the current tile's character, remove it from the string
+                for (int i = 0; i < currentString.length(); i++) {
+                    if (currValue.length() != 1 || currentString.charAt(i) != currValue.charAt(0))
+                        tempString.append(currentString.charAt(i));
+                }
+            } else if (currOperator.equals("%")) {      //if the current operation is mod
+                //go through each character of the player's string and mod it by the ascii value of the current tile's value
+                for (int i = 0; i < currentString.length(); i++) {
+                    if (Character.isLetter(currentString.charAt(i))) {
+                        int charValue;
+
+                        if(currValue.charAt(0) - 65 == 0)
+                           charValue  = 65;     //When the currValue is 'A', modding will always return A
+                        else
+                            charValue = (currentString.charAt(i) - 65) % (currValue.charAt(0) - 65) + 65;
+
+                        //append the resulting character
+                        if (charValue > 64 && charValue < 91)
+                            tempString.append((char) charValue);
+                    } else
+                        tempString.append(currentString.charAt(i));     //append character as is if not a letter
+                }
+            }
+
+            //return the resulting string
+            return tempString.toString();
+        }
+        else
+            return currentString;   //return player string untouched as string manipulation couldn't occur
+    }
+
+    //swaps any letters for numbers in the player's current string and vice versa
+    public String applyLetterNumberSwap(String currentString) {
+        StringBuilder tempString = operationString;
+        tempString.setLength(0);
+
+        //cycle through each letter in the player string
+        for(int i=0; i<currentString.length(); i++) {
+            //if the character is a letter, swap it to a number (A=0, B=1, C=2, etc.)
+            if(Character.isLetter(currentString.charAt(i)))
+                tempString.append(currentString.charAt(i)-65);
+            //if the character is a digit, swap it to a letter
+            else if(Character.isDigit(currentString.charAt(i))) {
+                //if the current character is not a zero and the next character can be coupled with the current character to form a two-digit number
+                //less than 26 (to ensure we get all letters of the alphabet), then take the two digits and convert to corresponding letter
+                if(currentString.charAt(i) != '0' && i < currentString.length()-1 && Character.isDigit(currentString.charAt(i+1)) &&
+                        (((int)currentString.charAt(i)-48) * 10 + (int)currentString.charAt(i+1)-48) <= 25) {
+                    tempString.append((char)((((int)currentString.charAt(i)-48) * 10 + (int)currentString.charAt(i+1)-48)+65));
+                    i++;
+                }
+                else        //otherwise take the single digit and convert to corresponding letter
+                    tempString.append((char)(currentString.charAt(i)+17));
+            }
+            else
+                tempString.append(currentString.charAt(i));     //if neither a letter or digit, append to the tempString (i.e. negative symbol or space or decimal)
+        }
+
+        return tempString.toString();       //return th resulting string
+    }
+
+    //swaps any occurrence of the two characters of a swap tile with each other in the player string
+    public String applySwap(String currentString, String swapVal1, String swapVal2) {
+        StringBuilder tempString = operationString;
+        tempString.setLength(0);
+
+        //check each character in the string if it matches either character in the tile and swap it for the other
+        for(int i=0; i<currentString.length(); i++) {
+            char c = currentString.charAt(i);
+
+            //if character matches value 1, swap with value 2
+            if(swapVal1.length() == 1 && c == swapVal1.charAt(0))
+                tempString.append(swapVal2);
+            //if character matches value 2, swap with value 1
+            else if(swapVal2.length() == 1 && c == swapVal2.charAt(0))
+                tempString.append(swapVal1);
+            else    //otherwise keep the original character
+                tempString.append(c);
+        }
+
+        //return the resulting string
+        return tempString.toString();
+    }
+
+    //Used to check if the tile value can be parsed into an integer (same as Integer.parseInt succeeding, without the exception)
+    private static boolean isInteger(String string) {
+        int length = string.length();
+        int i = 0;
+
+        if(length > 0 && (string.charAt(0) == '-' || string.charAt(0) == '+'))
+            i = 1;
+        if(i == length)
+            return false;
+
+        for(; i < length; i++) {
+            if(Character.digit(string.charAt(i), 10) < 0)
+                return false;
+        }
+
+        //long values might not fit in an int, let parseInt decide those
+        if(length > 9) {
+            try {
+                Integer.parseInt(string);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
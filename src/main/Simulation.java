@@ -0,0 +1,241 @@
+package main;
+
+import java.awt.event.KeyEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//replays recorded games (see InputLog) without a window. The keys of a log are given to the player on a simulated clock,
+//so a replay always ends the same way and never waits for real time to pass. At max speed (the default) moves skip their
+//animation and no updates are run between keys; timed replays run every update, with moves taking their normal time and
+//each key pressed after as many updates as it was recorded after. The levels are kept between replays and reset when loaded again
+public class Simulation {
+    private static final int KEY_INTERVAL = 10;     //updates between the keys of a solution log, enough for a move to finish
+    private static final int[] MOVE_KEYS = {KeyEvent.VK_W, KeyEvent.VK_S, KeyEvent.VK_A, KeyEvent.VK_D};   //keys for the solver's U, D, L, R moves
+
+    //how a replayed game ended
+    public static class Outcome {
+        private int levelIndex;         //index of the level the game ended on, past the last level if the game was finished
+        private String currentString;   //the player's string at the end
+        private float xPos;             //the player's position at the end
+        private float yPos;
+        private int keys;               //number of keys pressed, a move that was ignored because it wasn't possible counts too
+        private long updates;           //number of updates run
+
+        Outcome(int levelIndex, String currentString, float xPos, float yPos, int keys, long updates) {
+            this.levelIndex = levelIndex;
+            this.currentString = currentString;
+            this.xPos = xPos;
+            this.yPos = yPos;
+            this.keys = keys;
+            this.updates = updates;
+        }
+
+        public int getLevelIndex() {
+            return levelIndex;
+        }
+
+        public String getCurrentString() {
+            return currentString;
+        }
+
+        public int getKeys() {
+            return keys;
+        }
+
+        public long getUpdates() {
+            return updates;
+        }
+
+        //the state the game ended in, the number of updates isn't part of it as it depends on how the game was replayed
+        @Override
+        public String toString() {
+            return "level " + levelIndex + ", string \"" + currentString + "\", position " + (int) xPos + "," + (int) yPos + ", " + keys + " keys";
+        }
+    }
+
+    private GamePanel gp;               //the game, never shown in a window
+    private SimulationClock clock;      //the time the player's movement is timed with
+    private boolean timed;              //true to run every update and animate moves, false to replay at max speed
+    private float moveDuration;         //duration of a move in a timed replay
+
+    public Simulation(boolean timed) {
+        this.timed = timed;
+
+        clock = new SimulationClock();
+        gp = new GamePanel();
+        gp.keepLevels = true;
+        gp.player.setClock(clock);
+
+        moveDuration = gp.player.getMoveDuration();
+        if(!timed)
+            gp.player.setMoveDuration(0);
+    }
+
+    //plays a recorded game from the first level and returns how it ended. The replay stops at an Esc key or when the last
+    //level is finished
+    public Outcome replay(List<InputLog.Entry> entries) {
+        gp.restart();
+        gp.updateCount = 0;
+        clock.setTime(0);
+        int keys = 0;
+
+        for(InputLog.Entry entry : entries) {
+            if(gp.levelIndex > gp.numLevels || entry.getKeyCode() == KeyEvent.VK_ESCAPE)
+                break;
+
+            //run as many updates as were run before the key was pressed. The key did something when it was recorded, so
+            //if the player can't take another move yet (the replay uses a shorter move queue), let the moves catch up first
+            if(timed) {
+                while(gp.updateCount < entry.getUpdate() || gp.player.isMoveQueueFull())
+                    step();
+            }
+
+            gp.player.pressKey(entry.getKeyCode());
+            keys++;
+        }
+
+        while(timed && gp.player.isMoving())
+            step();
+
+        return new Outcome(gp.levelIndex, gp.player.getCurrentString(), gp.player.xPos, gp.player.yPos, keys, gp.updateCount);
+    }
+
+    //runs one update at the simulated time of the update
+    private void step() {
+        clock.setTime((gp.updateCount + 1) * 1000 / gp.UPS);
+        gp.update();
+    }
+
+    //plays every built in level with the shortest solution found by the solver and returns the keys pressed, a log that
+    //finishes the game. The log stops before the first level that can't be solved within the node budget
+    public List<InputLog.Entry> solutionLog(long nodeBudget) {
+        List<InputLog.Entry> entries = new ArrayList<InputLog.Entry>();
+        LevelSolver solver = new LevelSolver(LevelSolver.Strategy.BFS, nodeBudget);
+        long update = 0;
+
+        gp.restart();
+        gp.player.setMoveDuration(0);
+
+        while(gp.levelIndex <= gp.builtInLevels) {
+            int levelIndex = gp.levelIndex;
+            LevelSolver.Result result = solver.solve(gp.level.getLayout());
+
+            if(result.getStatus() != LevelSolver.Status.SOLVED) {
+                System.out.println(gp.level.getCurrLevelName() + " could not be solved (" + result.getStatus() + "), the log stops before it.");
+                break;
+            }
+
+            for(int i = 0; i < result.getMoves().length(); i++) {
+                int keyCode = MOVE_KEYS["UDLR".indexOf(result.getMoves().charAt(i))];
+                update += KEY_INTERVAL;
+                entries.add(new InputLog.Entry(update, keyCode));
+                gp.player.pressKey(keyCode);
+            }
+
+            if(gp.levelIndex == levelIndex) {
+                System.out.println("The solution of " + gp.level.getCurrLevelName() + " didn't finish the level in the game, the log stops after it.");
+                break;
+            }
+        }
+
+        gp.player.setMoveDuration(timed ? moveDuration : 0);
+        return entries;
+    }
+
+    //replays the log files (or the .log files in the directories) passed in and prints how each game ended.
+    //Options: --timed to run every update instead of replaying at max speed, --repeat=<times> to replay each log several
+    //times (the replays must all end the same way), --solution-log=<file> to first write a log that finishes the game
+    //with the solver's solutions, which is replayed if no other logs are given, and --budget=<max states searched per level>
+    //for the solver.
+    //Exits with status 1 if a log can't be read or the replays of a log didn't all end the same way
+    public static void main(String[] args) throws IOException {
+        boolean timed = false;
+        int repeat = 1;
+        String solutionLog = null;
+        long budget = 1000000;
+        List<File> files = new ArrayList<File>();
+
+        for(String arg : args) {
+            if(arg.equals("--timed"))
+                timed = true;
+            else if(arg.startsWith("--repeat="))
+                repeat = Integer.parseInt(arg.substring("--repeat=".length()));
+            else if(arg.startsWith("--solution-log="))
+                solutionLog = arg.substring("--solution-log=".length());
+            else if(arg.startsWith("--budget="))
+                budget = Long.parseLong(arg.substring("--budget=".length()));
+            else
+                addLogFiles(new File(arg), files);
+        }
+
+        //nothing is drawn, and the levels are built on this thread so that every replay loads them the same way
+        if(System.getProperty("java.awt.headless") == null)
+            System.setProperty("java.awt.headless", "true");
+        if(System.getProperty("numlet.preloadDepth") == null)
+            System.setProperty("numlet.preloadDepth", "0");
+
+        Simulation simulation = new Simulation(timed);
+
+        if(solutionLog != null) {
+            List<InputLog.Entry> entries = simulation.solutionLog(budget);
+            InputLog.write(entries, solutionLog);
+            System.out.println("Wrote " + entries.size() + " keys to " + solutionLog);
+
+            if(files.isEmpty())
+                files.add(new File(solutionLog));
+        }
+
+        List<List<InputLog.Entry>> logs = new ArrayList<List<InputLog.Entry>>();
+        for(File file : files)
+            logs.add(InputLog.read(file.getPath()));
+
+        long start = System.nanoTime();
+        long games = 0;
+        long keys = 0;
+        int mismatches = 0;
+
+        for(int i = 0; i < logs.size(); i++) {
+            Outcome first = null;
+
+            for(int r = 0; r < repeat; r++) {
+                Outcome outcome = simulation.replay(logs.get(i));
+                games++;
+                keys += outcome.getKeys();
+
+                if(first == null) {
+                    first = outcome;
+                    System.out.println(files.get(i).getPath() + ": " + outcome);
+                }
+                else if(!outcome.toString().equals(first.toString())) {
+                    System.out.println(files.get(i).getPath() + ": replay " + (r + 1) + " ended differently, " + outcome);
+                    mismatches++;
+                }
+            }
+        }
+
+        long micros = Math.max((System.nanoTime() - start) / 1000, 1);
+        System.out.println("Replayed " + games + " games (" + keys + " keys) " + (timed ? "timed" : "at max speed") + " in "
+                + micros / 1000 + " ms, " + games * 1000000 / micros + " games/s" + (mismatches > 0 ? ", " + mismatches + " replays ended differently" : ""));
+
+        if(mismatches > 0)
+            System.exit(1);
+    }
+
+    //adds the file, or the .log files in the directory sorted by name
+    private static void addLogFiles(File file, List<File> files) {
+        if(file.isDirectory()) {
+            File[] logFiles = file.listFiles((dir, name) -> name.endsWith(".log"));
+
+            if(logFiles != null) {
+                Arrays.sort(logFiles);
+                files.addAll(Arrays.asList(logFiles));
+            }
+        }
+        else {
+            files.add(file);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package main;
+
+//a clock that only moves when it's told to, used to replay a game at any speed with the same timing every time
+public class SimulationClock implements Clock {
+    private long time;          //current time in milliseconds
+
+    @Override
+    public long currentTimeMillis() {
+        return time;
+    }
+
+    //sets the current time in milliseconds
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    //moves the time forward by the given number of milliseconds
+    public void advance(long millis) {
+        time += millis;
+    }
+}
@@ -1,40 +1,29 @@
 package main;
 
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-
-import javax.imageio.ImageIO;
 
 public class Sprite {
-    private BufferedImage spriteSheet;      //stores the spritesheet as one image
-    private int frameWidth;                 //pixel width of each frame in spritesheet
-    private int frameHeight;                //pixel height of each frame in spritesheet
+    private String file;                    //asset path of the spritesheet
+    private int frameWidth;                 //width of a single frame
+    private int frameHeight;                //height of a single frame
+    private BufferedImage[] frames;         //frames of the spritesheet, shared through the sprite cache
 
     public Sprite(String file, int frameWidth, int frameHeight) {
+        this.file = file;
         this.frameWidth = frameWidth;
         this.frameHeight = frameHeight;
-
-        try {
-            spriteSheet = ImageIO.read(new File("Assets/" + file + ".png"));    //load the spritesheet
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        frames = SpriteCache.getFrames(file, frameWidth, frameHeight);     //load the spritesheet (decoded only once per file and frame size)
     }
 
     //Get the spritesheet as an array of images
+    //the array is shared with every other sprite using the same spritesheet, so it must not be modified
     public BufferedImage[] getSpritesheetFrames() {
-        //in this simple game where every entity has one small animation, each spritesheet
-        //will be one row of sprites, so no need to accommodate for several rows in spritesheet.
-        //The number of frames will be equal to the width of the sprite sheet divided by the width of a single frame
-        int numFrames = spriteSheet.getWidth() / frameWidth;
-        BufferedImage[] frames = new BufferedImage[numFrames];
-
-        //get each frame as a subimage of the spritesheet and store in an array
-        for(int i=0; i<numFrames; i++) {
-            frames[i] = spriteSheet.getSubimage(i * frameWidth, 0, frameWidth, frameHeight);
-        }
-
         return frames;
     }
+
+    //Get the spritesheet frames scaled by the given amount (scaled only once per spritesheet and size)
+    //the array is shared with every other sprite using the same spritesheet, so it must not be modified
+    public BufferedImage[] getScaledFrames(float scale) {
+        return SpriteCache.getScaledFrames(file, frameWidth, frameHeight, scale);
+    }
 }
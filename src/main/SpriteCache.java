@@ -0,0 +1,225 @@
+package main;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+
+public final class SpriteCache {
+    //decoded (and scaled) animation frames keyed by asset path and frame size, shared by every Sprite in the game
+    private static final ConcurrentHashMap<String, BufferedImage[]> frameCache = new ConcurrentHashMap<String, BufferedImage[]>();
+
+    //spritesheets that aren't in the atlas, decoded whole by asset path so they can be decoded ahead of time (see preload)
+    //before the frame size they're cut into is known. The frames are views of the sheet, so keeping it costs nothing extra
+    private static final ConcurrentHashMap<String, BufferedImage> sheetCache = new ConcurrentHashMap<String, BufferedImage>();
+
+    private static final AtomicLong hits = new AtomicLong();            //number of lookups served from the cache
+    private static final AtomicLong misses = new AtomicLong();          //number of lookups that had to decode or scale the spritesheet
+    private static final AtomicLong decodes = new AtomicLong();         //number of spritesheet files (and atlases) decoded from disk
+    private static final AtomicLong scales = new AtomicLong();          //number of spritesheets scaled to a new size
+    private static final AtomicLong decodeNanos = new AtomicLong();     //total time spent decoding spritesheets from disk
+
+    //scaled copies are made once, so by default they are resampled with the better looking (slower) interpolation.
+    //-Dnumlet.scaleQuality=speed uses nearest neighbour instead, which looks the same as scaling at draw time did
+    private static final boolean scaleForQuality = !"speed".equals(System.getProperty("numlet.scaleQuality"));
+
+    //the packed spritesheets, opened the first time a sheet is decoded. -Dnumlet.atlas=false reads every sheet from its own file
+    private static class AtlasHolder {
+        static final TextureAtlas atlas = openAtlas();
+    }
+
+    private SpriteCache() {
+    }
+
+    //returns the frames of the spritesheet at Assets/<file>.png cut into frameWidth x frameHeight images.
+    //Each spritesheet is only decoded once; the returned array is shared between all callers and must not be modified
+    public static BufferedImage[] getFrames(String file, int frameWidth, int frameHeight) {
+        String key = file + "@" + frameWidth + "x" + frameHeight;
+        BufferedImage[] frames = frameCache.get(key);
+
+        if(frames != null) {
+            hits.incrementAndGet();
+            return frames;
+        }
+
+        //computeIfAbsent makes sure that two threads asking for the same sheet only decode it once
+        return frameCache.computeIfAbsent(key, k -> decode(file, frameWidth, frameHeight));
+    }
+
+    //returns the frames of the spritesheet scaled by the given amount, so they can be drawn without scaling.
+    //The scaled frames are made once per spritesheet and size; the returned array is shared and must not be modified
+    public static BufferedImage[] getScaledFrames(String file, int frameWidth, int frameHeight, float scale) {
+        int scaledWidth = (int) (frameWidth * scale);
+        int scaledHeight = (int) (frameHeight * scale);
+
+        if(scaledWidth == frameWidth && scaledHeight == frameHeight)
+            return getFrames(file, frameWidth, frameHeight);
+
+        String key = file + "@" + frameWidth + "x" + frameHeight + ">" + scaledWidth + "x" + scaledHeight;
+        BufferedImage[] frames = frameCache.get(key);
+
+        if(frames != null) {
+            hits.incrementAndGet();
+            return frames;
+        }
+
+        BufferedImage[] unscaled = getFrames(file, frameWidth, frameHeight);
+        if(unscaled == null || scaledWidth <= 0 || scaledHeight <= 0)
+            return unscaled;
+
+        return frameCache.computeIfAbsent(key, k -> scale(unscaled, scaledWidth, scaledHeight));
+    }
+
+    //draw each frame into an image of the scaled size
+    private static BufferedImage[] scale(BufferedImage[] unscaled, int scaledWidth, int scaledHeight) {
+        misses.incrementAndGet();
+        scales.incrementAndGet();
+        BufferedImage[] frames = new BufferedImage[unscaled.length];
+
+        for(int i=0; i<unscaled.length; i++) {
+            frames[i] = createCompatibleImage(scaledWidth, scaledHeight);
+
+            Graphics2D g2D = frames[i].createGraphics();
+            if(scaleForQuality) {
+                g2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+                g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            } else {
+                g2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+                g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+            }
+            g2D.drawImage(unscaled[i], 0, 0, scaledWidth, scaledHeight, null);
+            g2D.dispose();
+        }
+
+        return frames;
+    }
+
+    //take the spritesheet from the atlas (or load it from disk if it isn't packed) and cut it into its frames
+    private static BufferedImage[] decode(String file, int frameWidth, int frameHeight) {
+        misses.incrementAndGet();
+        BufferedImage spriteSheet = getSheet(file);
+
+        if(spriteSheet == null)
+            return null;        //nothing is cached, so a later lookup will try to load the file again
+
+        //in this simple game where every entity has one small animation, each spritesheet
+        //will be one row of sprites, so no need to accommodate for several rows in spritesheet.
+        //The number of frames will be equal to the width of the sprite sheet divided by the width of a single frame
+        int numFrames = spriteSheet.getWidth() / frameWidth;
+        BufferedImage[] frames = new BufferedImage[numFrames];
+
+        //get each frame as a subimage of the spritesheet and store in an array (for a packed sheet that makes the
+        //frames regions of the atlas page, all drawn from the same image)
+        for(int i=0; i<numFrames; i++) {
+            frames[i] = spriteSheet.getSubimage(i * frameWidth, 0, frameWidth, frameHeight);
+        }
+
+        return frames;
+    }
+
+    //decodes the spritesheet at Assets/<file>.png ahead of time, so that the first Sprite using it doesn't wait for the
+    //decode. Is safe to call from any thread, a sheet that's already decoded or being decoded isn't decoded again
+    public static void preload(String file) {
+        getSheet(file);
+    }
+
+    //returns the whole spritesheet: its region of the atlas if it's packed, otherwise the sheet decoded from its file
+    //(only once), or null if it can't be read
+    private static BufferedImage getSheet(String file) {
+        TextureAtlas atlas = AtlasHolder.atlas;
+        BufferedImage spriteSheet = atlas != null ? atlas.getSheet(file) : null;
+
+        if(spriteSheet != null)
+            return spriteSheet;
+
+        return sheetCache.computeIfAbsent(file, SpriteCache::read);
+    }
+
+    //load the spritesheet from disk
+    private static BufferedImage read(String file) {
+        decodes.incrementAndGet();
+        long start = System.nanoTime();
+
+        try {
+            BufferedImage spriteSheet = ImageIO.read(new File("Assets/" + file + ".png"));
+            Startup.mark("first asset");
+            return spriteSheet;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            decodeNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    //loads the atlas if there is one (made with TextureAtlas's main from the spritesheets), counted as a single decode
+    private static TextureAtlas openAtlas() {
+        if("false".equals(System.getProperty("numlet.atlas")) || !new File(TextureAtlas.DEFAULT_PATH).isFile())
+            return null;
+
+        decodes.incrementAndGet();
+        long start = System.nanoTime();
+
+        try {
+            TextureAtlas atlas = TextureAtlas.load(TextureAtlas.DEFAULT_PATH);
+            if(!atlas.getChangedSheets().isEmpty())
+                System.out.println(atlas.getChangedSheets().size() + " spritesheets changed since the texture atlas was made, loading them from their files instead (run TextureAtlas to update it).");
+
+            Startup.mark("first asset");
+            return atlas;
+        } catch (IOException e) {
+            System.out.println("Texture atlas could not be read, loading the spritesheet files instead.");
+            e.printStackTrace();
+            return null;
+        } finally {
+            decodeNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    //creates a translucent image in the screen's pixel format so that drawing it doesn't need a conversion,
+    //or a plain ARGB image when there is no screen (headless tools and benchmarks)
+    public static BufferedImage createCompatibleImage(int width, int height) {
+        if(!GraphicsEnvironment.isHeadless())
+            return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+                    .createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    //number of lookups that were served without decoding
+    public static long getHits() {
+        return hits.get();
+    }
+
+    //number of lookups that had to decode or scale a spritesheet
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    //number of spritesheets decoded from disk
+    public static long getDecodes() {
+        return decodes.get();
+    }
+
+    //number of spritesheets scaled to a new size
+    public static long getScales() {
+        return scales.get();
+    }
+
+    //total time spent decoding spritesheets, in nanoseconds
+    public static long getDecodeNanos() {
+        return decodeNanos.get();
+    }
+
+    //number of distinct spritesheet/frame size/scaled size combinations currently cached
+    public static int size() {
+        return frameCache.size();
+    }
+}
@@ -0,0 +1,82 @@
+package main;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//gets the game on screen sooner: the sprite sheets are decoded and the metrics set up on a few background threads while
+//the window is being made, so the game panel finds them ready instead of doing it all one after another. Also keeps a
+//timeline of the startup (from the JVM starting to the first frame) that is logged once the first frame is drawn.
+//-Dnumlet.startupLog=false stops the timeline being printed
+public final class Startup {
+    private static final boolean log = !"false".equals(System.getProperty("numlet.startupLog"));
+    private static final long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();     //time the JVM started, in epoch milliseconds
+
+    //the level wall sheets aren't in the texture atlas, so they're decoded on their own
+    private static final String[] WALL_SHEETS = {"Animations/Level/Level1Wall", "Animations/Level/LevelWall"};
+
+    private static final LinkedHashMap<String, Long> timeline = new LinkedHashMap<String, Long>();     //milliseconds after the JVM started of each startup event, in the order they happened
+    private static volatile boolean firstFrameDrawn;        //true once the first frame was drawn and the timeline logged
+
+    private Startup() {
+    }
+
+    //starts decoding every sprite sheet the game needs and setting up the metrics (JMX and JFR take a while to start) on a
+    //small pool of background threads. Returns straight away; whatever isn't done yet when the game asks for it is waited for
+    public static void warmUp() {
+        int threads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "asset-warmup");
+            thread.setDaemon(true);         //never keeps the game from exiting
+            return thread;
+        });
+
+        List<String> sheets = new ArrayList<String>();
+        for(String sheet : WALL_SHEETS)
+            sheets.add(sheet);
+        sheets.addAll(TextureAtlas.defaultSheets());     //come from the atlas if there is one, a single decode for all of them
+
+        for(String sheet : sheets)
+            pool.submit(() -> SpriteCache.preload(sheet));
+        pool.submit(Metrics::warmUp);       //registers the MBean, after the sheets as the game doesn't wait for it
+
+        pool.shutdown();        //the threads stop once the sheets are done
+    }
+
+    //notes the time of a startup event, only the first time it happens
+    public static synchronized void mark(String event) {
+        if(!timeline.containsKey(event))
+            timeline.put(event, System.currentTimeMillis() - jvmStart);
+    }
+
+    //notes that a frame was drawn, the first one ends the startup and logs the timeline
+    public static void frameDrawn() {
+        if(firstFrameDrawn)
+            return;
+
+        firstFrameDrawn = true;
+        mark("first frame");
+
+        if(log)
+            System.out.println(describe());
+    }
+
+    //the startup timeline, like "Startup: main 80 ms, first asset 210 ms, ..., first frame 450 ms (30 ms after the window was shown)"
+    public static synchronized String describe() {
+        StringBuilder description = new StringBuilder("Startup:");
+
+        for(Map.Entry<String, Long> event : timeline.entrySet())
+            description.append(description.length() > "Startup:".length() ? ", " : " ").append(event.getKey()).append(' ').append(event.getValue()).append(" ms");
+
+        Long shown = timeline.get("window shown");
+        Long frame = timeline.get("first frame");
+        if(shown != null && frame != null)
+            description.append(" (").append(frame - shown).append(" ms after the window was shown)");
+
+        return description.toString();
+    }
+}
@@ -0,0 +1,288 @@
+package main;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+//the tile, player and line spritesheets packed into a few large images (pages) plus an index of where each sheet is.
+//Loading the atlas decodes a handful of pages instead of one file per sheet, and every frame the game draws is a region
+//of one of these pages, so the frames share a single premultiplied image instead of each sheet having its own.
+//
+//Layout of the index file (text):
+//  page <page file>                                one line per page, the file is next to the index
+//  sheet <asset path> <page> <x> <y> <w> <h> <size> <modified> <hash>
+//                                                  one line per sheet, the sheet's position in the page followed by the
+//                                                  size, last modified time and hash of its file when the atlas was made
+//
+//A sheet whose file was changed since the atlas was made isn't taken from the atlas, so an edited sheet is drawn as it is
+//in its file until TextureAtlas is run again
+public class TextureAtlas {
+    public static final String DEFAULT_PATH = "Assets/Animations/atlas.txt";     //where the game looks for the atlas index
+
+    //the spritesheets packed by default: every sheet in these directories, and the single sheets after them (asset paths
+    //without .png). The level walls are left out, each is bigger than a tile row and only one is used at a time
+    static final String[] SHEET_DIRECTORIES = {"Animations/Tiles", "Animations/Player"};
+    static final String[] SHEET_FILES = {"Animations/Level/Line"};
+
+    private static final int PAGE_SIZE = 2048;      //most width and height of a page, small enough for any graphics card
+    private static final int PADDING = 1;           //empty pixels between sheets, so filtering at an edge never reads the next sheet
+
+    private BufferedImage[] pages;                  //the pages, in the premultiplied format
+    private HashMap<String, BufferedImage> sheets;  //each packed sheet as a region of its page, by asset path
+    private List<String> changedSheets;             //sheets left out because their file changed since the atlas was made
+
+    private TextureAtlas(BufferedImage[] pages, HashMap<String, BufferedImage> sheets, List<String> changedSheets) {
+        this.pages = pages;
+        this.sheets = sheets;
+        this.changedSheets = changedSheets;
+    }
+
+    //reads the index and decodes every page it lists, leaving out the sheets whose file changed since the atlas was made
+    public static TextureAtlas load(String path) throws IOException {
+        File index = new File(path);
+        List<BufferedImage> pages = new ArrayList<BufferedImage>();
+        HashMap<String, BufferedImage> sheets = new HashMap<String, BufferedImage>();
+        List<String> changedSheets = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new FileReader(index));
+
+        try {
+            String line;
+            while((line = reader.readLine()) != null) {
+                String[] parts = line.trim().split(" ");
+
+                if(parts[0].equals("page")) {
+                    BufferedImage page = ImageIO.read(new File(index.getParentFile(), parts[1]));
+                    if(page == null)
+                        throw new IOException("Atlas page " + parts[1] + " could not be decoded");
+
+                    pages.add(toPremultiplied(page));
+                }
+                else if(parts[0].equals("sheet")) {
+                    if(parts.length != 10)
+                        throw new IOException("Malformed atlas index line: " + line);
+
+                    if(isChanged(new File("Assets/" + parts[1] + ".png"), Long.parseLong(parts[7]), Long.parseLong(parts[8]), Long.parseLong(parts[9]))) {
+                        changedSheets.add(parts[1]);
+                        continue;
+                    }
+
+                    BufferedImage page = pages.get(Integer.parseInt(parts[2]));
+                    sheets.put(parts[1], page.getSubimage(Integer.parseInt(parts[3]), Integer.parseInt(parts[4]),
+                            Integer.parseInt(parts[5]), Integer.parseInt(parts[6])));
+                }
+            }
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new IOException("Malformed atlas index " + path, e);
+        } finally {
+            reader.close();
+        }
+
+        return new TextureAtlas(pages.toArray(new BufferedImage[0]), sheets, changedSheets);
+    }
+
+    //returns true if the sheet's file isn't the one that was packed. Only its size and last modified time are checked,
+    //the file is only read when it was modified after the atlas was made (an edit, or a fresh checkout) and is still the
+    //same sheet if its contents are. A sheet without a file (a game shipped with only the atlas) is never changed
+    private static boolean isChanged(File file, long size, long modified, long hash) throws IOException {
+        if(!file.isFile())
+            return false;
+        if(file.length() != size)
+            return true;
+        if(file.lastModified() <= modified)
+            return false;
+
+        return hashFile(file) != hash;
+    }
+
+    //hash of the file's contents
+    static long hashFile(File file) throws IOException {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file.toPath()))).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);       //every JVM has SHA-256
+        }
+    }
+
+    //copies a decoded page into a premultiplied image, the format Java2D blends from without converting each pixel first.
+    //The page is only ever drawn from, never written to directly, so Java2D can keep a copy of it in video memory
+    private static BufferedImage toPremultiplied(BufferedImage image) {
+        BufferedImage premultiplied = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2D = premultiplied.createGraphics();
+        g2D.setComposite(AlphaComposite.Src);
+        g2D.drawImage(image, 0, 0, null);
+        g2D.dispose();
+
+        return premultiplied;
+    }
+
+    //returns the sheet with the given asset path as a region of its page, or null if it isn't in the atlas
+    public BufferedImage getSheet(String file) {
+        return sheets.get(file);
+    }
+
+    //number of pages in the atlas
+    public int getPageCount() {
+        return pages.length;
+    }
+
+    //number of sheets in the atlas
+    public int getSheetCount() {
+        return sheets.size();
+    }
+
+    //the sheets that are in the index but were left out because their file changed since the atlas was made
+    public List<String> getChangedSheets() {
+        return changedSheets;
+    }
+
+    //packs the given sheets (asset paths without .png) into pages and writes them with the index to the given path.
+    //Sheets are placed tallest first in rows across the page, a new page is started when the next row doesn't fit
+    public static void write(List<String> files, String path) throws IOException {
+        File index = new File(path);
+        File directory = index.getAbsoluteFile().getParentFile();
+        String pagePrefix = index.getName().replaceFirst("\\.[^.]*$", "");
+
+        List<BufferedImage> images = new ArrayList<BufferedImage>();
+        for(String file : files) {
+            BufferedImage image = ImageIO.read(new File("Assets/" + file + ".png"));
+            if(image == null)
+                throw new IOException("Assets/" + file + ".png could not be decoded");
+            if(image.getWidth() > PAGE_SIZE || image.getHeight() > PAGE_SIZE)
+                throw new IOException("Assets/" + file + ".png is bigger than an atlas page");
+
+            images.add(image);
+        }
+
+        //tallest first, then widest, then by name so the same sheets always give the same atlas
+        List<Integer> order = new ArrayList<Integer>();
+        for(int i = 0; i < files.size(); i++)
+            order.add(i);
+        order.sort((a, b) -> images.get(a).getHeight() != images.get(b).getHeight() ? images.get(b).getHeight() - images.get(a).getHeight()
+                : images.get(a).getWidth() != images.get(b).getWidth() ? images.get(b).getWidth() - images.get(a).getWidth()
+                : files.get(a).compareTo(files.get(b)));
+
+        //place the sheets: x, y and page of each sheet, and the used size of each page
+        int[][] placements = new int[files.size()][];
+        List<int[]> pageSizes = new ArrayList<int[]>();
+        int x = 0;
+        int y = 0;
+        int rowHeight = 0;
+        int usedWidth = 0;
+
+        for(int i : order) {
+            BufferedImage image = images.get(i);
+
+            if(x + image.getWidth() > PAGE_SIZE) {      //next row
+                x = 0;
+                y += rowHeight + PADDING;
+                rowHeight = 0;
+            }
+            if(y + image.getHeight() > PAGE_SIZE) {     //next page
+                pageSizes.add(new int[] {usedWidth, y - PADDING});
+                x = 0;
+                y = 0;
+                rowHeight = 0;
+                usedWidth = 0;
+            }
+
+            placements[i] = new int[] {x, y, pageSizes.size()};
+            x += image.getWidth() + PADDING;
+            rowHeight = Math.max(rowHeight, image.getHeight());
+            usedWidth = Math.max(usedWidth, x - PADDING);
+        }
+        if(!files.isEmpty())
+            pageSizes.add(new int[] {usedWidth, y + rowHeight});
+
+        //draw the pages. They're stored as plain ARGB since PNG can't hold premultiplied pixels, load converts them
+        PrintWriter out = new PrintWriter(new FileWriter(index));
+        out.println("#texture atlas made by TextureAtlas from the spritesheets, run it again after changing any of them");
+
+        for(int page = 0; page < pageSizes.size(); page++) {
+            BufferedImage pageImage = new BufferedImage(pageSizes.get(page)[0], pageSizes.get(page)[1], BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2D = pageImage.createGraphics();
+            g2D.setComposite(AlphaComposite.Src);
+
+            for(int i = 0; i < files.size(); i++) {
+                if(placements[i][2] == page)
+                    g2D.drawImage(images.get(i), placements[i][0], placements[i][1], null);
+            }
+            g2D.dispose();
+
+            String pageFile = pagePrefix + page + ".png";
+            ImageIO.write(pageImage, "png", new File(directory, pageFile));
+            out.println("page " + pageFile);
+        }
+
+        for(int i = 0; i < files.size(); i++) {
+            File file = new File("Assets/" + files.get(i) + ".png");
+            out.println("sheet " + files.get(i) + " " + placements[i][2] + " " + placements[i][0] + " " + placements[i][1]
+                    + " " + images.get(i).getWidth() + " " + images.get(i).getHeight()
+                    + " " + file.length() + " " + file.lastModified() + " " + hashFile(file));
+        }
+
+        out.close();
+    }
+
+    //the default sheets: every PNG in SHEET_DIRECTORIES (sorted by name) followed by SHEET_FILES
+    static List<String> defaultSheets() {
+        List<String> files = new ArrayList<String>();
+
+        for(String directory : SHEET_DIRECTORIES) {
+            File[] pngs = new File("Assets/" + directory).listFiles((dir, name) -> name.endsWith(".png"));
+            if(pngs == null)
+                continue;
+
+            Arrays.sort(pngs);
+            for(File png : pngs)
+                files.add(directory + "/" + png.getName().substring(0, png.getName().length() - ".png".length()));
+        }
+
+        for(String file : SHEET_FILES)
+            files.add(file);
+
+        return files;
+    }
+
+    //packs the spritesheets into an atlas the game loads instead of the separate files.
+    //Options: --out=<index file> (default Assets/Animations/atlas.txt), then the sheets to pack as asset paths
+    //without .png (default every tile and player sheet and the line)
+    public static void main(String[] args) {
+        String output = DEFAULT_PATH;
+        List<String> files = new ArrayList<String>();
+
+        for(String arg : args) {
+            if(arg.startsWith("--out="))
+                output = arg.substring("--out=".length());
+            else
+                files.add(arg);
+        }
+
+        if(files.isEmpty())
+            files = defaultSheets();
+
+        try {
+            write(files, output);
+            TextureAtlas atlas = load(output);
+            System.out.println("Packed " + atlas.getSheetCount() + " spritesheets into " + atlas.getPageCount() + " atlas pages, index written to " + output);
+        } catch (IOException e) {
+            System.out.println("Texture atlas could not be written.");
+            e.printStackTrace();
+        }
+    }
+}
@@ -45,7 +45,7 @@ public class Tile {
         if(file.equals("."))
             file = "Decimal";
         if(file.equals("-"))
-            file = "Sub";
+            file = "sub";
         this.value = value;
         this.spritesheet = new Sprite("Animations/Tiles/" + file, tileSize, tileSize);
         this.animation = new Animation(spritesheet.getSpritesheetFrames(), 12);
@@ -65,7 +65,7 @@ public class Tile {
         if(file.equals("."))
             file = "Decimal";
         if(file.equals("-"))
-            file = "Sub";
+            file = "sub";
         this.spritesheet = new Sprite("Animations/Tiles/" + file, tileSize, tileSize);
         this.animation = new Animation(spritesheet.getSpritesheetFrames(), 12);
         animation.start();
@@ -84,7 +84,7 @@ public class Tile {
         if(file.equals("."))
             file = "Decimal";
         if(file.equals("-"))
-            file = "Sub";
+            file = "sub";
         this.spritesheet = new Sprite("Animations/Tiles/" + file, tileSize, tileSize);
         this.animation = new Animation(spritesheet.getSpritesheetFrames(), 12);
         animation.start();
@@ -118,6 +118,22 @@ public class Tile {
         return yPos;
     }
 
+    //move the tile to a new position
+    public void setPosition(int xPos, int yPos) {
+        this.xPos = xPos;
+        this.yPos = yPos;
+    }
+
+    //put the tile's animation on the same frame as another tile, or in step with the animation clock if the other tile is null
+    public void syncAnimation(Tile other) {
+        animation.syncWith(other == null ? null : other.animation);
+    }
+
+    //start the tile's animation over from its first frame
+    public void restartAnimation() {
+        animation.restart();
+    }
+
     //get the first value for a swap tile
     public String getSwapVal1() {
         return swapVal1.getValue();
@@ -133,27 +149,59 @@ public class Tile {
         return tileType;
     }
 
-    //set the size of the tile
+    //set the size of the tile, the animation switches to frames that are already scaled to the new size so that the
+    //tile is drawn without scaling
     public void scale(float scale) {
         this.scale = scale;
+        animation.setFrames(spritesheet.getScaledFrames(scale));
+    }
+
+    //get the width and height the tile is drawn with
+    public int getDrawSize() {
+        return (int)(tileSize * scale);
+    }
+
+    //get the index of the animation frame the tile is currently on
+    public int getFrameIndex() {
+        return animation.getCurrentFrameIndex();
+    }
+
+    //get the animation frame the tile is currently on
+    public Image getCurrentFrame() {
+        return animation.getCurrentFrame();
+    }
+
+    //get the number of frames in the tile's animation
+    public int getNumFrames() {
+        return animation.getNumFrames();
     }
 
     //draw function for drawing the tile and it's current animation frame
     public void draw(Graphics2D g2D) {
-        //draw sprite animation here
-        g2D.drawImage((Image) animation.getCurrentFrame(), (int) xPos, (int) yPos, (int)(tileSize * scale), (int)(tileSize * scale), null);
+        draw(g2D, animation.getCurrentFrameIndex());
+    }
+
+    //draws the tile with the given frame of its animation (swap values are drawn with the same frame)
+    public void draw(Graphics2D g2D, int frame) {
+        //skip the tile if it's outside of the area being repainted (swap values are drawn inside the tile, so they can be skipped too)
+        if(!g2D.hitClip(xPos, yPos, getDrawSize(), getDrawSize()))
+            return;
+
+        //draw sprite animation here (the frames are already scaled to the size of the tile)
+        g2D.drawImage((Image) animation.getFrame(frame % animation.getNumFrames()), xPos, yPos, null);
         if(swapVal1 != null & swapVal2 != null) {
-            swapVal1.draw(g2D);
-            swapVal2.draw(g2D);
+            swapVal1.draw(g2D, frame);
+            swapVal2.draw(g2D, frame);
         }
     }
 
-    //update the animation(s)
-    public void update() {
-        animation.update();
+    //update the animation(s), returns true if the tile looks different and needs to be redrawn
+    public boolean update() {
+        boolean changed = animation.update();
         if(swapVal1 != null & swapVal2 != null) {
-            swapVal1.update();
-            swapVal2.update();
+            changed |= swapVal1.update();
+            changed |= swapVal2.update();
         }
+        return changed;
     }
 }
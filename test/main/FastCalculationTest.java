@@ -0,0 +1,82 @@
+package main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+//compares RulesEngine's long based calculation with the BigDecimal one on random player strings and tiles. Whenever
+//the fast path gives an answer it has to be the exact same string as BigDecimal's, the game relies on the two never
+//being told apart
+public class FastCalculationTest {
+    private static final long SEED = 20260418;      //fixed, so a failure can be reproduced
+    private static final int CASES = 500000;
+
+    private static final String[] OPERATORS = {"+", "-", "*", "/", "%"};
+    //the tile values of the game first, then forms only the BigDecimal parser treats the same way (leading zeros, signs)
+    private static final String[] TILES = {"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "0", "+3", "-2", "07"};
+
+    @Test
+    public void fastPathMatchesBigDecimal() {
+        Random random = new Random(SEED);
+        RulesEngine rules = new RulesEngine(12);
+        int fastResults = 0;
+
+        for(int i = 0; i < CASES; i++) {
+            String number = randomNumber(random);
+            String operator = OPERATORS[random.nextInt(OPERATORS.length)];
+            String tile = TILES[random.nextInt(random.nextInt(5) == 0 ? TILES.length : 10)];
+
+            String fast = rules.fastCalculation(number, operator, tile);
+            if(fast == null)
+                continue;       //left to BigDecimal, nothing to compare
+
+            fastResults++;
+            assertEquals(rules.bigDecimalCalculation(number, operator, tile), fast, number + " " + operator + " " + tile);
+        }
+
+        //make sure the comparison actually exercised the fast path
+        assertTrue(fastResults > CASES / 2, "only " + fastResults + " of " + CASES + " cases used the fast path");
+    }
+
+    //a random player string: mostly plain numbers with up to 13 digits (sometimes up to 19, past what a long can hold),
+    //optionally negative and with a decimal point anywhere, and a quarter of the time a small number like -0.000042
+    private static String randomNumber(Random random) {
+        StringBuilder number = new StringBuilder();
+
+        if(random.nextInt(4) == 0) {
+            if(random.nextBoolean())
+                number.append('-');
+            if(random.nextBoolean())
+                number.append('0');
+            number.append('.');
+
+            int zeros = random.nextInt(14);
+            for(int i = 0; i < zeros; i++)
+                number.append('0');
+            int digits = 1 + random.nextInt(4);
+            for(int i = 0; i < digits; i++)
+                number.append((char) ('0' + random.nextInt(10)));
+
+            return number.toString();
+        }
+
+        if(random.nextInt(3) == 0)
+            number.append('-');
+
+        int length = 1 + random.nextInt(random.nextInt(4) == 0 ? 19 : 13);
+        for(int i = 0; i < length; i++)
+            number.append((char) ('0' + (random.nextInt(3) == 0 ? 9 : random.nextInt(10))));     //extra nines to hit carries when rounding
+
+        if(random.nextInt(3) != 0) {
+            int point = random.nextInt(number.length() + 1);
+            if(point == 0 && number.charAt(0) == '-')
+                point = 1;
+            number.insert(point, '.');
+        }
+
+        return number.toString();
+    }
+}
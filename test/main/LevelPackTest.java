@@ -0,0 +1,116 @@
+package main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+//writing the shipped levels into a pack and reading them back, and telling when a pack is out of date with its level files
+public class LevelPackTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void packedLevelsMatchTheirFiles() throws IOException {
+        List<File> files = levelFiles();
+        List<LevelLayout> layouts = new ArrayList<LevelLayout>();
+        for(File file : files)
+            layouts.add(LevelLayout.load(file.getPath()));
+
+        String path = directory.resolve("levels.pack").toString();
+        LevelPack.write(layouts, path, files);
+        LevelPack pack = LevelPack.open(path);
+
+        assertEquals(layouts.size(), pack.getLevelCount());
+        for(int i = 0; i < layouts.size(); i++) {
+            assertSameLayout(layouts.get(i), pack.getLayout(i));
+            assertSameLayout(layouts.get(i), pack.getLayout(layouts.get(i).getName()));
+            assertTrue(pack.hasLevel(layouts.get(i).getName()));
+        }
+
+        assertFalse(pack.hasLevel("Level" + (layouts.size() + 1)));
+        assertNull(pack.getLayout("Level" + (layouts.size() + 1)));
+    }
+
+    @Test
+    public void packIsOutOfDateOnceALevelFileChanges() throws IOException {
+        List<File> files = new ArrayList<File>();
+        for(File file : levelFiles().subList(0, 3))
+            files.add(Files.copy(file.toPath(), directory.resolve(file.getName()), StandardCopyOption.COPY_ATTRIBUTES).toFile());
+
+        String path = directory.resolve("levels.pack").toString();
+        LevelPack.write(loadAll(files), path, files);
+        LevelPack pack = LevelPack.open(path);
+
+        assertTrue(pack.isUpToDate(files));
+        assertFalse(pack.isUpToDate(files.subList(0, 2)));      //a level file was removed
+        assertTrue(pack.isUpToDate(new ArrayList<File>()));     //no level files at all, only the pack is shipped
+
+        //a newer file with the same contents (a fresh checkout) is still the same level
+        File level = files.get(1);
+        assertTrue(level.setLastModified(level.lastModified() + 60000));
+        assertTrue(pack.isUpToDate(files));
+
+        Files.write(level.toPath(), (new String(Files.readAllBytes(level.toPath())) + "\n").getBytes());
+        assertTrue(level.setLastModified(level.lastModified() + 120000));
+        assertFalse(pack.isUpToDate(files));
+    }
+
+    @Test
+    public void packNotMadeFromFilesIsAlwaysUpToDate() throws IOException {
+        List<File> files = levelFiles();
+        String path = directory.resolve("generated.pack").toString();
+        LevelPack.write(loadAll(files.subList(0, 1)), path);
+
+        assertEquals(0, LevelPack.open(path).getSourceHash());
+        assertTrue(LevelPack.open(path).isUpToDate(files));
+    }
+
+    private static List<File> levelFiles() {
+        List<File> files = new ArrayList<File>();
+        LevelSolver.addLevelFiles(new File("Assets/Levels"), files);
+        assertFalse(files.isEmpty(), "the tests are run from the project directory, next to Assets");
+        return files;
+    }
+
+    private static List<LevelLayout> loadAll(List<File> files) throws IOException {
+        List<LevelLayout> layouts = new ArrayList<LevelLayout>();
+        for(File file : files)
+            layouts.add(LevelLayout.load(file.getPath()));
+        return layouts;
+    }
+
+    private static void assertSameLayout(LevelLayout expected, LevelLayout actual) {
+        String name = expected.getName();
+
+        assertEquals(name, actual.getName());
+        assertEquals(expected.getGoal(), actual.getGoal(), name);
+        assertEquals(expected.getLevelWidth(), actual.getLevelWidth(), name);
+        assertEquals(expected.getLevelHeight(), actual.getLevelHeight(), name);
+        assertEquals(expected.getStartColumn(), actual.getStartColumn(), name);
+        assertEquals(expected.getStartRow(), actual.getStartRow(), name);
+        assertEquals(expected.getEndColumn(), actual.getEndColumn(), name);
+        assertEquals(expected.getEndRow(), actual.getEndRow(), name);
+        assertEquals(expected.getStartString(), actual.getStartString(), name);
+
+        for(int row = 0; row < expected.getRows(); row++) {
+            for(int column = 0; column < expected.getColumns(); column++) {
+                String cell = name + " " + column + "," + row;
+                assertEquals(expected.getCell(column, row), actual.getCell(column, row), cell);
+                assertEquals(expected.getSwapValue1(column, row), actual.getSwapValue1(column, row), cell);
+                assertEquals(expected.getSwapValue2(column, row), actual.getSwapValue2(column, row), cell);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+//the three search strategies have to agree on the shortest solution of every shipped level
+public class LevelSolverTest {
+    private static final long BUDGET = 500000;      //enough for every strategy on every level but Level6
+
+    //Level6 needs more than a million states with every strategy, it's checked by LevelValidator with a bigger budget
+    private static final String SKIPPED = "Level6.txt";
+
+    @Test
+    public void strategiesAgreeOnShippedLevels() throws IOException {
+        List<File> files = new ArrayList<File>();
+        LevelSolver.addLevelFiles(new File("Assets/Levels"), files);
+        assertFalse(files.isEmpty(), "the tests are run from the project directory, next to Assets");
+
+        LevelSolver breadthFirst = new LevelSolver(LevelSolver.Strategy.BFS, BUDGET);
+        LevelSolver iterativeDeepening = new LevelSolver(LevelSolver.Strategy.IDDFS, BUDGET);
+        LevelSolver aStar = new LevelSolver(LevelSolver.Strategy.ASTAR, BUDGET);
+
+        for(File file : files) {
+            if(file.getName().equals(SKIPPED))
+                continue;
+
+            LevelLayout layout = LevelLayout.load(file.getPath());
+            LevelSolver.Result shortest = breadthFirst.solve(layout);
+            assertEquals(LevelSolver.Status.SOLVED, shortest.getStatus(), file.getName());
+
+            for(LevelSolver solver : new LevelSolver[] {iterativeDeepening, aStar}) {
+                LevelSolver.Result result = solver.solve(layout);
+
+                assertEquals(LevelSolver.Status.SOLVED, result.getStatus(), file.getName());
+                assertEquals(shortest.getMoves().length(), result.getMoves().length(), file.getName() + " " + result.getMoves());
+            }
+        }
+    }
+
+    //the solutions of the first levels, as the game has always found them
+    @Test
+    public void breadthFirstFindsKnownSolutions() throws IOException {
+        LevelSolver solver = new LevelSolver(LevelSolver.Strategy.BFS, BUDGET);
+
+        assertEquals("UULDUU", solver.solve(LevelLayout.load("Assets/Levels/Level1.txt")).getMoves());
+        assertEquals("UUURDULU", solver.solve(LevelLayout.load("Assets/Levels/Level2.txt")).getMoves());
+        assertEquals("URUULLDDUDRUUU", solver.solve(LevelLayout.load("Assets/Levels/Level10.txt")).getMoves());
+    }
+}
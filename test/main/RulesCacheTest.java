@@ -0,0 +1,54 @@
+package main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+//the size bound and the counters of RulesCache
+public class RulesCacheTest {
+    private final RulesEngine rules = new RulesEngine(Player.MAX_STRING_LENGTH);
+
+    //fills the cache with many more different results than it can hold
+    private static void fill(RulesCache cache, RulesEngine rules, int results) {
+        for(int i = 0; i < results; i++)
+            cache.applyOperation(rules, "" + i, "+", "1");
+    }
+
+    @Test
+    public void holdsExactlyTheCapacity() {
+        RulesCache cache = new RulesCache(20);      //not a multiple of the number of segments
+        fill(cache, rules, 5000);
+
+        assertEquals(20, cache.size());
+        assertEquals(5000 - 20, cache.getEvictions());
+    }
+
+    @Test
+    public void capacityBelowSegmentCountIsKept() {
+        RulesCache cache = new RulesCache(5);
+        fill(cache, rules, 5000);
+
+        assertEquals(5, cache.size());
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        RulesCache cache = new RulesCache(64);
+
+        assertEquals("12", cache.applyOperation(rules, "9", "+", "3"));
+        assertEquals("12", cache.applyOperation(rules, "9", "+", "3"));
+        assertEquals("6", cache.applyOperation(rules, "9", "-", "3"));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void disabledCacheKeepsNothing() {
+        RulesCache cache = new RulesCache(0);
+        fill(cache, rules, 100);
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getEvictions());
+    }
+}
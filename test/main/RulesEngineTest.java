@@ -0,0 +1,38 @@
+package main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+//the letter rules of RulesEngine, mainly the * rule's length cutoff which has to give the same strings the game always did
+public class RulesEngineTest {
+    //a space before the middle of the string: the cutoff is measured the way the game always measured it, so the second
+    //word still gets the letter even though the string is close to the most length
+    @Test
+    public void multiplyBeforeMiddleKeepsOriginalResult() {
+        RulesEngine rules = new RulesEngine(7);
+
+        assertEquals("AZ BZ CD", rules.applyStringManipulation("A B CD", "*", true, "Z"));
+        assertEquals("ABZ CZ", rules.applyStringManipulation("AB C", "*", true, "Z"));
+        assertEquals("Z AZ BZ", rules.applyStringManipulation(" A B", "*", true, "Z"));
+    }
+
+    //a space past the middle of the string used to throw StringIndexOutOfBoundsException, now the characters still to be
+    //added are counted
+    @Test
+    public void multiplyPastMiddleDoesNotThrow() {
+        RulesEngine rules = new RulesEngine(7);
+
+        assertEquals("ABZ CZ D", rules.applyStringManipulation("AB C D", "*", true, "Z"));
+        assertEquals("AZ BZ C", rules.applyStringManipulation("A B C", "*", true, "Z"));
+        assertEquals("AZ BCZ D", rules.applyStringManipulation("A BC D", "*", true, "Z"));
+    }
+
+    //a string at the most length is left as it is
+    @Test
+    public void multiplyAtMaxLengthKeepsString() {
+        RulesEngine rules = new RulesEngine(6);
+
+        assertEquals("AB CDE", rules.applyStringManipulation("AB CDE", "*", true, "Z"));
+    }
+}